@@ -11,6 +11,7 @@ public class CorsConfig implements WebMvcConfigurer {
         registry.addMapping("/**")
             .allowedOriginPatterns("https://*.dhanur.me", "https://dhanur.me")
             .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
+            .exposedHeaders("X-Change-Token", "ETag")
             .allowCredentials(true)
             .maxAge(86400);
     }
@@ -0,0 +1,73 @@
+package me.dhanur.tasks.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.dhanur.tasks.entity.Task;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Second-level cache for tasks, kept in process by Caffeine behind JCache.
+ * <p>
+ * Tasks are cached by id, bounded in number and age. Hibernate updates or evicts a cached task whenever it
+ * writes that task, so the age bound only matters for changes made to the table behind its back. When the
+ * query cache is enabled, cached listing pages and counts are dropped on the next write to the tasks table.
+ */
+@Configuration
+public class TaskCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    CacheManager taskCacheManager(TaskProperties taskProperties, MeterRegistry meterRegistry) {
+        TaskProperties.Cache properties = taskProperties.getCache();
+        // A manager of our own rather than the provider's default one, which every context would share
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("tasks:" + UUID.randomUUID()), getClass().getClassLoader());
+
+        Cache<Object, Object> tasks = cacheManager.createCache(Task.CACHE_REGION, bounded(properties));
+        Cache<Object, Object> queries = cacheManager.createCache(
+                RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded(properties));
+        // Never evicted: a query result whose table has no timestamp would be taken as current
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>().setStoreByValue(false));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, caffeine(tasks), "tasks.entity");
+        CaffeineCacheMetrics.monitor(meterRegistry, caffeine(queries), "tasks.query");
+        return cacheManager;
+    }
+
+    /**
+     * Hand Hibernate the cache manager with the regions already created, so that it cannot fall back to
+     * unbounded ones
+     */
+    @Bean
+    HibernatePropertiesCustomizer taskCacheHibernateProperties(CacheManager taskCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, taskCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(TaskProperties.Cache properties) {
+        return new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(properties.getMaximumSize()))
+                .setExpireAfterWrite(OptionalLong.of(properties.getTimeToLive().toNanos()))
+                .setNativeStatisticsEnabled(true)
+                .setStoreByValue(false);
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine(Cache<Object, Object> cache) {
+        return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+    }
+}
@@ -0,0 +1,31 @@
+package me.dhanur.tasks.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import me.dhanur.tasks.dto.TaskFields;
+import me.dhanur.tasks.dto.TaskResponse;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lets a response carry only the task fields its request selected.
+ * <p>
+ * Every mapper the application builds, JSON or binary, tags task responses with a property filter. No
+ * filter is registered under that id by default, so tasks are written in full; a response whose request
+ * selected fields brings its own.
+ */
+@Configuration
+public class TaskFieldsConfig {
+
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer taskFieldsFilter() {
+        return builder -> builder
+                .mixIn(TaskResponse.class, FilteredTask.class)
+                .filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+
+    @JsonFilter(TaskFields.FILTER)
+    private interface FilteredTask {
+    }
+}
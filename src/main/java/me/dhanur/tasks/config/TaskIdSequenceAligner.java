@@ -0,0 +1,48 @@
+package me.dhanur.tasks.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import me.dhanur.tasks.entity.Task;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the task id sequence past the highest existing id on startup. Databases created while ids came
+ * from an identity column already hold rows the new sequence knows nothing about, and a fresh sequence
+ * would hand those ids out again.
+ * <p>
+ * Takes the EntityManagerFactory so that it runs after the schema migrations, which complete before
+ * Hibernate starts, and before the web server starts accepting requests.
+ */
+@Component
+@Slf4j
+public class TaskIdSequenceAligner implements InitializingBean {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TaskIdSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            Long next = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TASKS_SEQ'",
+                    Long.class);
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tasks", Long.class);
+
+            // The pooled optimizer hands out the block ending at each sequence value, so the next value must
+            // clear the highest id by a full allocation
+            long required = maxId + Task.ID_ALLOCATION_SIZE + 1;
+            if (maxId > 0 && next != null && next < required) {
+                jdbcTemplate.execute("ALTER SEQUENCE tasks_seq RESTART WITH " + required);
+                log.info("Restarted tasks_seq at {} to clear existing task ids up to {}", required, maxId);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not align tasks_seq with existing task ids: {}", ex.getMessage());
+        }
+    }
+}
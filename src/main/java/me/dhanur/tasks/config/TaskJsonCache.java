@@ -0,0 +1,150 @@
+package me.dhanur.tasks.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.dhanur.tasks.dto.TaskFields;
+import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.event.TaskEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps each task's JSON as UTF-8 bytes and splices them into responses, so that a task is only
+ * serialized again once it changes.
+ * <p>
+ * Registered as a Jackson module on the application's ObjectMapper, so list pages, streams and events all
+ * pick it up. Entries are keyed by task id, checked against the task's version, and dropped as soon as a
+ * change to the task commits. Anything other than compact JSON of the whole task, such as pretty-printed
+ * output, JSON views or a selection of fields, is serialized the usual way.
+ */
+@Component
+public class TaskJsonCache extends SimpleModule {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Cache<Long, Entry> entries;
+
+    public TaskJsonCache(TaskProperties taskProperties, MeterRegistry meterRegistry) {
+        super(TaskJsonCache.class.getSimpleName());
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(taskProperties.getCache().getMaximumSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "tasks.json");
+
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                    JsonSerializer<?> serializer) {
+                return beanDesc.getBeanClass() == TaskResponse.class
+                        ? new CachingSerializer((JsonSerializer<Object>) serializer)
+                        : serializer;
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        entries.invalidate(event.taskId());
+    }
+
+    /**
+     * A task's JSON at one version. The serialized string keeps its UTF-8 encoding once computed, which
+     * JSON generators copy straight into their output buffer.
+     */
+    private record Entry(long version, SerializedString json) {
+    }
+
+    private final class CachingSerializer extends StdSerializer<TaskResponse>
+            implements ContextualSerializer, ResolvableSerializer {
+
+        private final JsonSerializer<Object> delegate;
+
+        CachingSerializer(JsonSerializer<Object> delegate) {
+            super(TaskResponse.class);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void serialize(TaskResponse task, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (!cacheable(task, gen, provider)) {
+                delegate.serialize(task, gen, provider);
+                return;
+            }
+            Entry entry = entries.getIfPresent(task.getId());
+            if (entry == null || entry.version() != task.getVersion()) {
+                entry = new Entry(task.getVersion(), render(task, provider));
+                entries.put(task.getId(), entry);
+            }
+            gen.writeRawValue(entry.json());
+        }
+
+        private boolean cacheable(TaskResponse task, JsonGenerator gen, SerializerProvider provider) {
+            return task.getId() != null
+                    && task.getVersion() != null
+                    && gen instanceof JsonGeneratorImpl
+                    && gen.getPrettyPrinter() == null
+                    && provider.getActiveView() == null
+                    && !filtered(task, provider);
+        }
+
+        /**
+         * Whether the response selects only some of the task's fields
+         */
+        private boolean filtered(TaskResponse task, SerializerProvider provider) {
+            FilterProvider filters = provider.getFilterProvider();
+            return filters != null && filters.findPropertyFilter(TaskFields.FILTER, task) != null;
+        }
+
+        private SerializedString render(TaskResponse task, SerializerProvider provider) throws IOException {
+            ByteArrayBuilder buffer = new ByteArrayBuilder();
+            try (JsonGenerator local = JSON_FACTORY.createGenerator(buffer)) {
+                delegate.serialize(task, local, provider);
+            }
+            SerializedString json = new SerializedString(new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+            json.asUnquotedUTF8();
+            return json;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (delegate instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+                throws JsonMappingException {
+            if (!(delegate instanceof ContextualSerializer contextual)) {
+                return this;
+            }
+            JsonSerializer<?> serializer = contextual.createContextual(provider, property);
+            return serializer == delegate ? this : new CachingSerializer((JsonSerializer<Object>) serializer);
+        }
+    }
+}
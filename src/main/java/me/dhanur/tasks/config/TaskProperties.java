@@ -0,0 +1,72 @@
+package me.dhanur.tasks.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "tasks")
+public class TaskProperties {
+
+    private Count count = new Count();
+    private Events events = new Events();
+    private Cache cache = new Cache();
+    private Board board = new Board();
+    private Coalesce coalesce = new Coalesce();
+
+    @Data
+    public static class Count {
+        /**
+         * How long a cached task total is served before it is recounted in the background
+         */
+        private Duration refreshAfter = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Events {
+        /**
+         * Events buffered per subscriber; a subscriber that falls this far behind is disconnected
+         */
+        private int bufferSize = 1024;
+        private int maxSubscribers = 10000;
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+        /**
+         * How long a subscription stays open before the client has to reconnect
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Most tasks, and most listing queries, held in the second-level cache; also bounds the serialized
+         * JSON kept per task
+         */
+        private long maximumSize = 10000;
+        /**
+         * How long a cached task or listing query is kept after it was written
+         */
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Board {
+        /**
+         * Whether to keep every task in memory and answer list requests from there
+         */
+        private boolean enabled = false;
+    }
+
+    @Data
+    public static class Coalesce {
+        /**
+         * Whether identical concurrent list reads share one query
+         */
+        private boolean enabled = true;
+        /**
+         * How long a finished list read is handed to identical reads that arrive after it
+         */
+        private Duration window = Duration.ofMillis(50);
+    }
+}
@@ -0,0 +1,61 @@
+package me.dhanur.tasks.controller;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Strong entity tags for task responses. A single task is tagged with its entity version; list
+ * responses are tagged with the board version, which moves on every committed change, and with their
+ * media type, since JSON, CBOR and Smile bodies of the same list differ byte for byte.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String forTask(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    static String forBoard(String boardVersion, MediaType contentType) {
+        return "\"board-" + boardVersion + "-" + contentType.getSubtype() + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches the current tag (weak comparison, as RFC 9110 requires)
+     */
+    static boolean noneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Task version demanded by an If-Match header, or null when the header is absent or "*".
+     * Weak or malformed tags can never match strongly, so they are reported as version -1.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
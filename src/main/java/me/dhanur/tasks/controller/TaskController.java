@@ -1,5 +1,9 @@
 package me.dhanur.tasks.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,18 +14,37 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import me.dhanur.tasks.config.WireFormatConfig;
+import me.dhanur.tasks.dto.CursorPage;
 import me.dhanur.tasks.dto.ErrorResponse;
+import me.dhanur.tasks.dto.TaskBatchRequest;
+import me.dhanur.tasks.dto.TaskBatchResponse;
+import me.dhanur.tasks.dto.TaskChanges;
+import me.dhanur.tasks.dto.TaskFields;
 import me.dhanur.tasks.dto.TaskRequest;
 import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.dto.TaskSlice;
+import me.dhanur.tasks.dto.TaskSummary;
 import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.event.TaskEventBroadcaster;
 import me.dhanur.tasks.service.TaskService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/v1/tasks")
@@ -30,7 +53,18 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Task Management", description = "REST API for managing tasks")
 public class TaskController {
 
+        static final String CHANGE_TOKEN_HEADER = "X-Change-Token";
+
+        private static final List<MediaType> LIST_FORMATS = List.of(MediaType.APPLICATION_JSON,
+                        MediaType.APPLICATION_CBOR, WireFormatConfig.APPLICATION_SMILE);
+        private static final List<MediaType> STREAM_FORMATS = List.of(MediaType.APPLICATION_JSON,
+                        MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_CBOR, WireFormatConfig.APPLICATION_SMILE);
+
         private final TaskService taskService;
+        private final ObjectMapper objectMapper;
+        private final TaskEventBroadcaster taskEventBroadcaster;
+        private final MappingJackson2CborHttpMessageConverter cborConverter;
+        private final MappingJackson2SmileHttpMessageConverter smileConverter;
 
         @PostMapping
         @Operation(summary = "Create a new task", description = "Creates a new task with the provided details")
@@ -46,75 +80,267 @@ public class TaskController {
                 return ResponseEntity.status(HttpStatus.CREATED).body(response);
         }
 
+        @PostMapping("/batch")
+        @Operation(summary = "Apply a batch of operations", description = "Creates, updates, changes the status of and deletes tasks in a single transaction. Each operation is reported with the status the equivalent single request would have returned; rejected operations do not stop the others.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Batch applied", content = @Content(schema = @Schema(implementation = TaskBatchResponse.class))),
+                        @ApiResponse(responseCode = "400", description = "Malformed batch", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+        })
+        public ResponseEntity<TaskBatchResponse> applyBatch(
+                        @Valid @RequestBody TaskBatchRequest request) {
+
+                log.info("Received batch of {} task operations", request.getOperations().size());
+                TaskBatchResponse response = taskService.applyBatch(request);
+                return ResponseEntity.ok(response);
+        }
+
         @GetMapping
-        @Operation(summary = "Get all tasks", description = "Retrieves all tasks with pagination and optional filtering")
-        @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully")
+        @Operation(summary = "Get all tasks", description = "Retrieves all tasks with pagination and optional filtering. The response carries a board ETag; send it back in If-None-Match to get a 304 while nothing has changed.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully"),
+                        @ApiResponse(responseCode = "304", description = "No task has changed since the ETag in If-None-Match")
+        })
         public ResponseEntity<Page<TaskResponse>> getAllTasks(
                         @Parameter(description = "Page number (0-indexed)") @RequestParam(defaultValue = "0") int page,
 
                         @Parameter(description = "Number of items per page") @RequestParam(defaultValue = "10") int size,
 
-                        @Parameter(description = "Sort field and direction (e.g., createdAt,desc)") @RequestParam(defaultValue = "createdAt,desc") String sort,
+                        @Parameter(description = "Sort field (createdAt, updatedAt, title or status) and direction, e.g. createdAt,desc") @RequestParam(defaultValue = "createdAt,desc") String sort,
 
-                        @Parameter(description = "Filter by task status") @RequestParam(required = false) TaskStatus status) {
+                        @Parameter(description = "Filter by task status") @RequestParam(required = false) TaskStatus status,
+
+                        @Parameter(description = "Comma-separated task fields to return, e.g. id,title,status (all when omitted)") @RequestParam(required = false) String fields,
+
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
 
                 log.info("Received request to get all tasks - page: {}, size: {}, status: {}", page, size, status);
 
-                String[] sortParams = sort.split(",");
-                Sort.Direction direction = sortParams.length > 1 && sortParams[1].equalsIgnoreCase("asc")
-                                ? Sort.Direction.ASC
-                                : Sort.Direction.DESC;
+                Pageable pageable = toPageable(page, size, sort);
+                TaskFields selection = TaskFields.parse(fields);
+                MediaType contentType = listContentType(accept);
+                // Tag before reading, so a change that lands in between yields a stale tag, never a stale body
+                String etag = ETags.forBoard(taskService.boardVersion(), contentType);
+                if (ETags.noneMatch(ifNoneMatch, etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+                }
+                Page<TaskResponse> tasks = taskService.getAllTasks(pageable, status, selection);
+
+                return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).contentType(contentType).body(tasks);
+        }
+
+        // A cursor request never counts, so it goes to getTasksByCursor whatever count says
+        @GetMapping(params = { "count=false", "!cursor" })
+        @Operation(summary = "Get tasks without a total", description = "Retrieves a page of tasks without counting all matching rows. Use hasNext or last to continue; pass approximateTotal=true for a cached total that may lag recent writes.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully"),
+                        @ApiResponse(responseCode = "304", description = "No task has changed since the ETag in If-None-Match")
+        })
+        public ResponseEntity<TaskSlice> getTaskSlice(
+                        @Parameter(description = "Page number (0-indexed)") @RequestParam(defaultValue = "0") int page,
+
+                        @Parameter(description = "Number of items per page") @RequestParam(defaultValue = "10") int size,
+
+                        @Parameter(description = "Sort field (createdAt, updatedAt, title or status) and direction, e.g. createdAt,desc") @RequestParam(defaultValue = "createdAt,desc") String sort,
+
+                        @Parameter(description = "Filter by task status") @RequestParam(required = false) TaskStatus status,
+
+                        @Parameter(description = "Include a cached approximate total") @RequestParam(defaultValue = "false") boolean approximateTotal,
+
+                        @Parameter(description = "Comma-separated task fields to return, e.g. id,title,status (all when omitted)") @RequestParam(required = false) String fields,
+
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+                log.info("Received request to get task slice - page: {}, size: {}, status: {}", page, size, status);
+                Pageable pageable = toPageable(page, size, sort);
+                TaskFields selection = TaskFields.parse(fields);
+                MediaType contentType = listContentType(accept);
+                String etag = ETags.forBoard(taskService.boardVersion(), contentType);
+                if (ETags.noneMatch(ifNoneMatch, etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+                }
+                TaskSlice tasks = taskService.getTaskSlice(pageable, status, selection, approximateTotal);
+                return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).contentType(contentType).body(tasks);
+        }
+
+        @GetMapping(params = "cursor")
+        @Operation(summary = "Get tasks by cursor", description = "Retrieves tasks newest first using keyset pagination. Pass an empty cursor for the first page and the returned nextCursor for each following page. No total is counted, so count is ignored.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Tasks retrieved successfully"),
+                        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+        })
+        public ResponseEntity<CursorPage<TaskResponse>> getTasksByCursor(
+                        @Parameter(description = "Continuation cursor from the previous page (empty for the first page)") @RequestParam String cursor,
+
+                        @Parameter(description = "Number of items per page") @RequestParam(defaultValue = "10") int size,
+
+                        @Parameter(description = "Filter by task status") @RequestParam(required = false) TaskStatus status,
 
-                Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortParams[0]));
-                Page<TaskResponse> tasks = taskService.getAllTasks(pageable, status);
+                        @Parameter(description = "Comma-separated task fields to return, e.g. id,title,status (all when omitted)") @RequestParam(required = false) String fields) {
 
+                log.info("Received request to get tasks by cursor - size: {}, status: {}", size, status);
+                CursorPage<TaskResponse> tasks = taskService.getTasksAfter(cursor, size, status, TaskFields.parse(fields));
                 return ResponseEntity.ok(tasks);
         }
 
+        @GetMapping(value = "/stream", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                        MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE })
+        @Operation(summary = "Stream all tasks", description = "Streams every task, newest first, in a single response. Returns a JSON array, one JSON object per line when application/x-ndjson is accepted, or a CBOR or Smile array when application/cbor or application/x-jackson-smile is. The X-Change-Token header can be passed to /changes to pick up later changes.")
+        @ApiResponse(responseCode = "200", description = "Tasks streamed successfully")
+        public ResponseEntity<StreamingResponseBody> streamTasks(
+                        @Parameter(description = "Filter by task status") @RequestParam(required = false) TaskStatus status,
+
+                        @Parameter(description = "Comma-separated task fields to return, e.g. id,title,status (all when omitted)") @RequestParam(required = false) String fields,
+
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+                TaskFields selection = TaskFields.parse(fields);
+                MediaType contentType = streamContentType(accept);
+                boolean ndjson = contentType.equals(MediaType.APPLICATION_NDJSON);
+                log.info("Received request to stream tasks - status: {}, format: {}", status, contentType);
+
+                // Only a real selection gets filters, so whole tasks are still spliced from the JSON cache
+                ObjectMapper mapper = streamMapper(contentType);
+                ObjectWriter writer = (selection.isAll() ? mapper.writer() : mapper.writer(selection.filters()))
+                                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                StreamingResponseBody body = ndjson
+                                ? out -> taskService.streamTasks(status, selection, unchecked(task -> {
+                                        writer.writeValue(out, task);
+                                        out.write('\n');
+                                }))
+                                : out -> {
+                                        try (SequenceWriter array = writer.writeValuesAsArray(out)) {
+                                                taskService.streamTasks(status, selection, unchecked(array::write));
+                                        }
+                                };
+
+                // Taken before the rows are read, so following the stream with /changes misses nothing
+                return ResponseEntity.ok()
+                                .header(CHANGE_TOKEN_HEADER, taskService.currentChangeToken())
+                                .contentType(contentType)
+                                .body(body);
+        }
+
+        @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        @Operation(summary = "Subscribe to task events", description = "Server-Sent Events stream of task.created, task.updated, task.status_changed and task.deleted events, sent once each change commits. Each event ID is a change token usable with /changes to catch up after a reconnect.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Subscription opened"),
+                        @ApiResponse(responseCode = "503", description = "Too many open subscriptions")
+        })
+        public ResponseEntity<SseEmitter> subscribeToEvents() {
+                log.info("Received request to subscribe to task events");
+                SseEmitter emitter = taskEventBroadcaster.subscribe();
+                if (emitter == null) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+                }
+                return ResponseEntity.ok(emitter);
+        }
+
+        @GetMapping("/changes")
+        @Operation(summary = "Get task changes", description = "Retrieves tasks created or modified and the IDs of tasks deleted since a change token. Start from the X-Change-Token header of /stream (or omit since for everything) and pass the returned token on the next call.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Changes retrieved successfully", content = @Content(schema = @Schema(implementation = TaskChanges.class))),
+                        @ApiResponse(responseCode = "400", description = "Invalid change token", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+        })
+        public ResponseEntity<TaskChanges> getChanges(
+                        @Parameter(description = "Change token from a previous call or from the X-Change-Token header of /stream") @RequestParam(required = false) String since) {
+
+                log.info("Received request to get task changes since: {}", since);
+                TaskChanges changes = taskService.getChangesSince(since);
+                return ResponseEntity.ok(changes);
+        }
+
+        @GetMapping("/search")
+        @Operation(summary = "Search tasks", description = "Finds tasks whose title or description contain every word of the query, matching whole words or their beginnings. Results are ranked, best first, with title matches and rarer words counting more.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Matching tasks, best first"),
+                        @ApiResponse(responseCode = "400", description = "Invalid limit", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+        })
+        public ResponseEntity<List<TaskResponse>> searchTasks(
+                        @Parameter(description = "Words to search for", required = true) @RequestParam String q,
+
+                        @Parameter(description = "Filter by task status") @RequestParam(required = false) TaskStatus status,
+
+                        @Parameter(description = "Maximum number of results (1-100)") @RequestParam(defaultValue = "20") int limit) {
+
+                log.info("Received request to search tasks - query: {}, status: {}", q, status);
+                return ResponseEntity.ok(taskService.searchTasks(q, status, limit));
+        }
+
+        @GetMapping("/summary")
+        @Operation(summary = "Count tasks by status", description = "Returns the number of tasks in each status and in total, from counters kept in memory rather than by counting rows")
+        @ApiResponse(responseCode = "200", description = "Summary retrieved successfully")
+        public ResponseEntity<TaskSummary> getSummary() {
+                log.info("Received request to get task summary");
+                return ResponseEntity.ok(taskService.getSummary());
+        }
+
         @GetMapping("/{id}")
-        @Operation(summary = "Get task by ID", description = "Retrieves a single task by its ID")
+        @Operation(summary = "Get task by ID", description = "Retrieves a single task by its ID. The response carries the task's ETag; send it back in If-None-Match to get a 304 while the task is unchanged.")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Task found", content = @Content(schema = @Schema(implementation = TaskResponse.class))),
+                        @ApiResponse(responseCode = "304", description = "Task unchanged since the ETag in If-None-Match"),
                         @ApiResponse(responseCode = "404", description = "Task not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
         })
         public ResponseEntity<TaskResponse> getTaskById(
-                        @Parameter(description = "Task ID", required = true) @PathVariable Long id) {
+                        @Parameter(description = "Task ID", required = true) @PathVariable Long id,
+
+                        @Parameter(description = "Comma-separated task fields to return, e.g. id,title,status (all when omitted)") @RequestParam(required = false) String fields,
+
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
                 log.info("Received request to get task with id: {}", id);
+                // Read whole from the second-level cache; TaskFieldsAdvice trims the fields as it is written
+                TaskFields.validate(fields);
+                if (ifNoneMatch != null) {
+                        String etag = ETags.forTask(taskService.getTaskVersion(id));
+                        if (ETags.noneMatch(ifNoneMatch, etag)) {
+                                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                        }
+                }
                 TaskResponse response = taskService.getTaskById(id);
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok().eTag(ETags.forTask(response.getVersion())).body(response);
         }
 
         @PutMapping("/{id}")
-        @Operation(summary = "Update task", description = "Updates an existing task's title and description")
+        @Operation(summary = "Update task", description = "Updates an existing task's title and description. Send the task's ETag in If-Match to update only if nobody else has changed it.")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Task updated successfully", content = @Content(schema = @Schema(implementation = TaskResponse.class))),
                         @ApiResponse(responseCode = "404", description = "Task not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
-                        @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+                        @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+                        @ApiResponse(responseCode = "412", description = "Task changed since the ETag in If-Match", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
         })
         public ResponseEntity<TaskResponse> updateTask(
                         @Parameter(description = "Task ID", required = true) @PathVariable Long id,
-                        @Valid @RequestBody TaskRequest request) {
+                        @Valid @RequestBody TaskRequest request,
+
+                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
                 log.info("Received request to update task {}: {}", id, request.getTitle());
-                TaskResponse response = taskService.updateTask(id, request);
-                return ResponseEntity.ok(response);
+                TaskResponse response = taskService.updateTask(id, request, ETags.expectedVersion(ifMatch));
+                return ResponseEntity.ok().eTag(ETags.forTask(response.getVersion())).body(response);
         }
 
         @PatchMapping("/{id}/status")
         @Operation(summary = "Update task status", description = "Updates only the status of an existing task")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Task status updated successfully", content = @Content(schema = @Schema(implementation = TaskResponse.class))),
-                        @ApiResponse(responseCode = "404", description = "Task not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+                        @ApiResponse(responseCode = "404", description = "Task not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+                        @ApiResponse(responseCode = "412", description = "Task changed since the ETag in If-Match", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
         })
         public ResponseEntity<TaskResponse> updateTaskStatus(
                         @Parameter(description = "Task ID", required = true) @PathVariable Long id,
 
-                        @Parameter(description = "New task status", required = true) @RequestParam TaskStatus status) {
+                        @Parameter(description = "New task status", required = true) @RequestParam TaskStatus status,
+
+                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
                 log.info("Received request to update status of task {} to {}", id, status);
-                TaskResponse response = taskService.updateTaskStatus(id, status);
-                return ResponseEntity.ok(response);
+                TaskResponse response = taskService.updateTaskStatus(id, status, ETags.expectedVersion(ifMatch));
+                return ResponseEntity.ok().eTag(ETags.forTask(response.getVersion())).body(response);
         }
 
         @DeleteMapping("/{id}")
@@ -130,4 +356,58 @@ public class TaskController {
                 taskService.deleteTask(id);
                 return ResponseEntity.noContent().build();
         }
+
+        private static Pageable toPageable(int page, int size, String sort) {
+                return PageRequest.of(page, size, TaskSortField.parse(sort));
+        }
+
+        /**
+         * The first streamable format named in Accept, or JSON when none is
+         */
+        /**
+         * The list format the client prefers, chosen here rather than left to the converters so that the
+         * ETag can name it
+         */
+        private static MediaType listContentType(String accept) {
+                return firstAccepted(accept, LIST_FORMATS);
+        }
+
+        private static MediaType streamContentType(String accept) {
+                return firstAccepted(accept, STREAM_FORMATS);
+        }
+
+        private static MediaType firstAccepted(String accept, List<MediaType> formats) {
+                if (accept == null) {
+                        return MediaType.APPLICATION_JSON;
+                }
+                return MediaType.parseMediaTypes(accept).stream()
+                                .flatMap(type -> formats.stream().filter(type::equalsTypeAndSubtype))
+                                .findFirst()
+                                .orElse(MediaType.APPLICATION_JSON);
+        }
+
+        private ObjectMapper streamMapper(MediaType contentType) {
+                if (contentType.equals(MediaType.APPLICATION_CBOR)) {
+                        return cborConverter.getObjectMapper();
+                }
+                if (contentType.equals(WireFormatConfig.APPLICATION_SMILE)) {
+                        return smileConverter.getObjectMapper();
+                }
+                return objectMapper;
+        }
+
+        private static Consumer<TaskResponse> unchecked(TaskWriter writer) {
+                return task -> {
+                        try {
+                                writer.write(task);
+                        } catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                        }
+                };
+        }
+
+        @FunctionalInterface
+        private interface TaskWriter {
+                void write(TaskResponse task) throws IOException;
+        }
 }
@@ -0,0 +1,33 @@
+package me.dhanur.tasks.controller;
+
+import me.dhanur.tasks.dto.TaskFields;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Writes only the fields selected with {@code fields=} of every task in a response, whether it is sent on
+ * its own or inside a page
+ */
+@RestControllerAdvice(assignableTypes = TaskController.class)
+class TaskFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    static final String FIELDS_PARAMETER = "fields";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+            MethodParameter returnType, ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        TaskFields fields = TaskFields.parse(servletRequest.getServletRequest().getParameter(FIELDS_PARAMETER));
+        if (!fields.isAll()) {
+            bodyContainer.setFilters(fields.filters());
+        }
+    }
+}
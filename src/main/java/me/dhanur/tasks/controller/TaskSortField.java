@@ -0,0 +1,46 @@
+package me.dhanur.tasks.controller;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Fields the task list can be sorted by. Each one maps to an ordering that one of the tasks indexes can
+ * return without sorting, with or without a status filter, and ends in the id so that rows sharing a
+ * value keep a stable order across pages.
+ */
+enum TaskSortField {
+
+    CREATED_AT("createdAt", "createdAt"),
+    UPDATED_AT("updatedAt", "updatedAt"),
+    TITLE("title", "title"),
+    STATUS("status", "status", "createdAt");
+
+    private final String parameter;
+    private final String[] properties;
+
+    TaskSortField(String parameter, String... properties) {
+        this.parameter = parameter;
+        this.properties = properties;
+    }
+
+    /**
+     * Parse a "field,direction" sort parameter. Rejects fields outside the whitelist.
+     */
+    static Sort parse(String sort) {
+        String[] sortParams = sort.split(",");
+        Sort.Direction direction = sortParams.length > 1 && sortParams[1].trim().equalsIgnoreCase("asc")
+                ? Sort.Direction.ASC
+                : Sort.Direction.DESC;
+
+        TaskSortField field = Arrays.stream(values())
+                .filter(candidate -> candidate.parameter.equals(sortParams[0].trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Cannot sort by '" + sortParams[0]
+                        + "'; use one of " + Arrays.stream(values()).map(f -> f.parameter)
+                                .collect(Collectors.joining(", "))));
+
+        return Sort.by(direction, field.properties).and(Sort.by(direction, "id"));
+    }
+}
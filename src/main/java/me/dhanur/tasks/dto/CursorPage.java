@@ -0,0 +1,29 @@
+package me.dhanur.tasks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "A page of results addressed by an opaque continuation cursor")
+public class CursorPage<T> {
+
+    @Schema(description = "Items in this page")
+    private List<T> content;
+
+    @Schema(description = "Requested page size", example = "10")
+    private int size;
+
+    @Schema(description = "Cursor for the next page, or null when this is the last page", example = "MjAyNi0wMi0wOFQxMDozMDowMHw0Mg")
+    private String nextCursor;
+
+    @Schema(description = "Whether another page follows this one")
+    private boolean hasNext;
+}
@@ -0,0 +1,36 @@
+package me.dhanur.tasks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.dhanur.tasks.entity.TaskStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "A single operation within a batch")
+public class TaskBatchOperation {
+
+    public enum Type {
+        CREATE, UPDATE, UPDATE_STATUS, DELETE
+    }
+
+    @NotNull(message = "Operation type is required")
+    @Schema(description = "Operation type", example = "CREATE", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Type type;
+
+    @Schema(description = "Target task ID (UPDATE, UPDATE_STATUS and DELETE)", example = "1")
+    private Long id;
+
+    @Valid
+    @Schema(description = "Task title and description (CREATE and UPDATE)")
+    private TaskRequest task;
+
+    @Schema(description = "New task status (UPDATE_STATUS)", example = "DONE")
+    private TaskStatus status;
+}
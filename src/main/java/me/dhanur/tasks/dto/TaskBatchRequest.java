@@ -0,0 +1,25 @@
+package me.dhanur.tasks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "A list of task operations applied in a single transaction")
+public class TaskBatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 500, message = "A batch cannot contain more than 500 operations")
+    @Schema(description = "Operations, applied in order", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<@Valid TaskBatchOperation> operations;
+}
@@ -0,0 +1,26 @@
+package me.dhanur.tasks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Per-operation results of a batch")
+public class TaskBatchResponse {
+
+    @Schema(description = "Number of operations that were applied", example = "3")
+    private int succeeded;
+
+    @Schema(description = "Number of operations that were rejected", example = "1")
+    private int failed;
+
+    @Schema(description = "Results in request order")
+    private List<TaskBatchResult> results;
+}
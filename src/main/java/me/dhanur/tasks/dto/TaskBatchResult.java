@@ -0,0 +1,32 @@
+package me.dhanur.tasks.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of a single batch operation")
+public class TaskBatchResult {
+
+    @Schema(description = "Position of the operation in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Operation type", example = "CREATE")
+    private TaskBatchOperation.Type type;
+
+    @Schema(description = "HTTP status the equivalent single request would have returned", example = "201")
+    private int status;
+
+    @Schema(description = "The task after the operation (absent for DELETE and failures)")
+    private TaskResponse task;
+
+    @Schema(description = "Error message for a failed operation", example = "Task with id 5 not found")
+    private String error;
+}
@@ -0,0 +1,26 @@
+package me.dhanur.tasks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Tasks changed and deleted since a change token")
+public class TaskChanges {
+
+    @Schema(description = "Tasks created or modified since the token, in their current state")
+    private List<TaskResponse> tasks;
+
+    @Schema(description = "IDs of tasks deleted since the token", example = "[3, 7]")
+    private List<Long> deleted;
+
+    @Schema(description = "Token to pass as since on the next call", example = "1042")
+    private String token;
+}
@@ -0,0 +1,90 @@
+package me.dhanur.tasks.dto;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The task fields a client asked for with {@code fields=}, such as {@code id,title,status}. Only those
+ * are read from the table and written to the response; without the parameter a task carries every field.
+ */
+public record TaskFields(Set<String> names) {
+
+    /**
+     * Id of the Jackson filter that leaves only the selected fields in a serialized task
+     */
+    public static final String FILTER = "taskFields";
+
+    /**
+     * Every field of a task response, in the order they are serialized
+     */
+    public static final List<String> NAMES = List.of(
+            "id", "title", "description", "status", "createdAt", "updatedAt", "version");
+
+    public static final TaskFields ALL = new TaskFields(Set.copyOf(NAMES));
+
+    public TaskFields {
+        names = Set.copyOf(names);
+    }
+
+    /**
+     * Parse a comma-separated list of field names; null or blank selects every field. Rejects names a task
+     * does not have.
+     */
+    public static TaskFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> names = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+        for (String name : names) {
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown task field '" + name + "'; use any of "
+                        + String.join(", ", NAMES));
+            }
+        }
+        return names.isEmpty() ? ALL : new TaskFields(names);
+    }
+
+    /**
+     * Check a comma-separated list of field names without keeping the selection, for responses that are
+     * read whole and only trimmed as they are written. Rejects names a task does not have.
+     */
+    public static void validate(String fields) {
+        parse(fields);
+    }
+
+    public boolean isAll() {
+        return names.size() == NAMES.size();
+    }
+
+    /**
+     * This selection plus the given fields, which the caller needs whether or not they are sent
+     */
+    public TaskFields with(String... required) {
+        return new TaskFields(Stream.concat(names.stream(), Arrays.stream(required)).collect(Collectors.toSet()));
+    }
+
+    /**
+     * The selected fields in serialization order
+     */
+    public List<String> ordered() {
+        return NAMES.stream().filter(names::contains).toList();
+    }
+
+    /**
+     * Filters that leave only the selected fields in serialized tasks
+     */
+    public FilterProvider filters() {
+        return new SimpleFilterProvider()
+                .addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(names));
+    }
+}
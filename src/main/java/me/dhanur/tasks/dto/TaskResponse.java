@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Schema(description = "Task response object")
 public class TaskResponse {
 
@@ -33,4 +33,7 @@ public class TaskResponse {
 
     @Schema(description = "Last update timestamp", example = "2026-02-08T15:45:00")
     private LocalDateTime updatedAt;
+
+    @Schema(description = "Version, incremented on every change; also sent as the ETag", example = "3")
+    private Long version;
 }
@@ -0,0 +1,43 @@
+package me.dhanur.tasks.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "A page of tasks without an exact total")
+public class TaskSlice {
+
+    @Schema(description = "Tasks in this page")
+    private List<TaskResponse> content;
+
+    @Schema(description = "Page number (0-indexed)", example = "0")
+    private int number;
+
+    @Schema(description = "Requested page size", example = "10")
+    private int size;
+
+    @Schema(description = "Number of tasks in this page", example = "10")
+    private int numberOfElements;
+
+    @Schema(description = "Whether this is the first page")
+    private boolean first;
+
+    @Schema(description = "Whether this is the last page")
+    private boolean last;
+
+    @Schema(description = "Whether another page follows this one")
+    private boolean hasNext;
+
+    @Schema(description = "Approximate number of matching tasks, only present when requested with approximateTotal=true", example = "1250")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long approximateTotal;
+}
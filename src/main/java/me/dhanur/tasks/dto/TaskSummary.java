@@ -0,0 +1,24 @@
+package me.dhanur.tasks.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.dhanur.tasks.entity.TaskStatus;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Number of tasks in each status")
+public class TaskSummary {
+
+    @Schema(description = "Task count per status", example = "{\"TODO\": 12, \"IN_PROGRESS\": 3, \"DONE\": 40}")
+    private Map<TaskStatus, Long> counts;
+
+    @Schema(description = "Total number of tasks", example = "55")
+    private long total;
+}
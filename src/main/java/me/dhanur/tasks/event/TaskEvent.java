@@ -0,0 +1,30 @@
+package me.dhanur.tasks.event;
+
+import me.dhanur.tasks.dto.TaskResponse;
+
+/**
+ * A committed change to a task, as broadcast to live subscribers.
+ *
+ * @param task the task after the change, or null for deletions
+ */
+public record TaskEvent(Type type, Long taskId, TaskResponse task, long changeSeq) {
+
+    public enum Type {
+        CREATED, UPDATED, STATUS_CHANGED, DELETED;
+
+        /**
+         * SSE event name, e.g. task.status_changed
+         */
+        public String eventName() {
+            return "task." + name().toLowerCase();
+        }
+    }
+
+    public static TaskEvent of(Type type, TaskResponse task, long changeSeq) {
+        return new TaskEvent(type, task.getId(), task, changeSeq);
+    }
+
+    public static TaskEvent deleted(Long taskId, long changeSeq) {
+        return new TaskEvent(Type.DELETED, taskId, null, changeSeq);
+    }
+}
@@ -0,0 +1,203 @@
+package me.dhanur.tasks.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.dhanur.tasks.config.TaskProperties;
+import me.dhanur.tasks.service.ChangeSequence;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Fans committed task events out to SSE subscribers.
+ * <p>
+ * Events are handed to a single dispatcher thread once their transaction commits. The dispatcher copies
+ * each event into every subscriber's bounded buffer without blocking, and a per-subscriber virtual thread
+ * writes that buffer to the connection. A subscriber whose buffer is full is disconnected rather than
+ * allowed to hold back the others; clients reconnect and catch up through /changes.
+ * <p>
+ * Each event is sent with a change token as its ID. The token is taken when the event is dispatched and
+ * stops short of every change that is still in flight or still queued for dispatch, so a client that
+ * resumes /changes from the last ID it saw misses nothing. It may be below the event's own change number,
+ * in which case /changes repeats that change.
+ */
+@Component
+@Slf4j
+public class TaskEventBroadcaster {
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final TaskProperties.Events properties;
+    private final ChangeSequence changeSequence;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<TaskEvent> pending = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private final Counter evicted;
+    private volatile boolean running = true;
+
+    public TaskEventBroadcaster(TaskProperties taskProperties, ChangeSequence changeSequence,
+            MeterRegistry meterRegistry) {
+        this.properties = taskProperties.getEvents();
+        this.changeSequence = changeSequence;
+        this.evicted = Counter.builder("tasks.events.evicted")
+                .description("Subscribers disconnected for falling behind")
+                .register(meterRegistry);
+        Gauge.builder("tasks.events.subscribers", subscribers, Set::size)
+                .description("Open task event subscriptions")
+                .register(meterRegistry);
+        this.dispatcher = Thread.ofVirtual().name("task-events-dispatcher").start(this::dispatch);
+    }
+
+    /**
+     * Open a subscription, or return null if the subscriber limit has been reached
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= properties.getMaxSubscribers()) {
+            return null;
+        }
+        return subscribe(new SseEmitter(properties.getTimeout().toMillis()));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, properties.getBufferSize());
+        emitter.onCompletion(subscriber::release);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+        subscriber.start();
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Queue a committed event. Spring delivers after-commit events from the same completion callbacks that
+     * release change numbers, so this listener is ordered first to queue the event while its change number
+     * is still held back from the watermark.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        pending.offer(event);
+    }
+
+    @Scheduled(fixedDelayString = "${tasks.events.heartbeat-interval:30s}")
+    void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                TaskEvent event = pending.take();
+                Dispatch dispatch = new Dispatch(event, catchUpToken());
+                subscribers.forEach(subscriber -> subscriber.offer(dispatch));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A change token below every change not yet handed to subscribers. Events are queued before their
+     * change numbers are released (see {@link #onTaskEvent}), so reading the watermark first and then the
+     * queue leaves no gap.
+     */
+    private long catchUpToken() {
+        long token = changeSequence.safeWatermark();
+        for (TaskEvent queued : pending) {
+            token = Math.min(token, queued.changeSeq() - 1);
+        }
+        return token;
+    }
+
+    private record Dispatch(TaskEvent event, long token) {
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> buffer;
+        private Thread sender;
+
+        Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void start() {
+            sender = Thread.ofVirtual().name("task-events-subscriber").start(this::send);
+        }
+
+        void offer(Object message) {
+            if (!buffer.offer(message)) {
+                log.info("Disconnecting task event subscriber that fell {} events behind", buffer.size());
+                evicted.increment();
+                close();
+            }
+        }
+
+        void close() {
+            if (release()) {
+                emitter.complete();
+            }
+        }
+
+        /**
+         * Stop delivering to this subscriber. Returns false if it was already released.
+         */
+        boolean release() {
+            if (!subscribers.remove(this)) {
+                return false;
+            }
+            sender.interrupt();
+            return true;
+        }
+
+        private void send() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Object message = buffer.take();
+                    if (message == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        Dispatch dispatch = (Dispatch) message;
+                        TaskEvent event = dispatch.event();
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(dispatch.token()))
+                                .name(event.type().eventName())
+                                .data(event));
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException ex) {
+                // Client went away or the emitter already completed
+                close();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package me.dhanur.tasks.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
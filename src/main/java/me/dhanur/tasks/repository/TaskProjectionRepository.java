@@ -0,0 +1,43 @@
+package me.dhanur.tasks.repository;
+
+import me.dhanur.tasks.dto.TaskFields;
+import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.entity.TaskStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Task listings that read only some columns. Fields left out of the selection are null in the
+ * returned responses; the id is always read.
+ */
+public interface TaskProjectionRepository {
+
+    /**
+     * Find a page of tasks, optionally by status, reading only the given fields
+     */
+    Page<TaskResponse> findSparsePage(TaskFields fields, TaskStatus status, Pageable pageable);
+
+    /**
+     * Find a page of tasks, optionally by status, reading only the given fields and without counting
+     */
+    Slice<TaskResponse> findSparseSlice(TaskFields fields, TaskStatus status, Pageable pageable);
+
+    /**
+     * Tasks newest first, optionally by status, strictly after (createdAt, id) when those are given,
+     * reading only the given fields
+     */
+    List<TaskResponse> findSparseAfter(TaskFields fields, TaskStatus status, LocalDateTime createdAt, Long id,
+            Limit limit);
+
+    /**
+     * Every task newest first, optionally by status, reading only the given fields incrementally. Must be
+     * consumed inside a transaction and closed.
+     */
+    Stream<TaskResponse> streamSparse(TaskFields fields, TaskStatus status);
+}
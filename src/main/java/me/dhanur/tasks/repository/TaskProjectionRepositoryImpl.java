@@ -0,0 +1,144 @@
+package me.dhanur.tasks.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import me.dhanur.tasks.dto.TaskFields;
+import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.entity.Task;
+import me.dhanur.tasks.entity.TaskStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Builds the select list from the requested fields, so that columns nobody asked for are never read
+ */
+class TaskProjectionRepositoryImpl implements TaskProjectionRepository {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<TaskResponse> findSparsePage(TaskFields fields, TaskStatus status, Pageable pageable) {
+        List<String> columns = columns(fields);
+        TypedQuery<Tuple> query = select(columns, status, pageable.getSort(), null, null);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<TaskResponse> content = toResponses(query.getResultList(), columns);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(status));
+    }
+
+    @Override
+    public Slice<TaskResponse> findSparseSlice(TaskFields fields, TaskStatus status, Pageable pageable) {
+        List<String> columns = columns(fields);
+        // One extra row tells whether another slice follows
+        List<Tuple> rows = select(columns, status, pageable.getSort(), null, null)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<TaskResponse> content = toResponses(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, columns);
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public List<TaskResponse> findSparseAfter(TaskFields fields, TaskStatus status, LocalDateTime createdAt,
+            Long id, Limit limit) {
+        List<String> columns = columns(fields);
+        TypedQuery<Tuple> query = select(columns, status, NEWEST_FIRST, createdAt, id);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return toResponses(query.getResultList(), columns);
+    }
+
+    @Override
+    public Stream<TaskResponse> streamSparse(TaskFields fields, TaskStatus status) {
+        List<String> columns = columns(fields);
+        return select(columns, status, NEWEST_FIRST, null, null)
+                .setHint(HINT_FETCH_SIZE, 500)
+                .setHint(HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(row -> toResponse(row, columns));
+    }
+
+    private static List<String> columns(TaskFields fields) {
+        return fields.with("id").ordered();
+    }
+
+    private TypedQuery<Tuple> select(List<String> columns, TaskStatus status, Sort sort,
+            LocalDateTime createdAt, Long id) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Task> task = query.from(Task.class);
+        query.multiselect(columns.stream().<Selection<?>>map(column -> task.get(column).alias(column)).toList());
+
+        List<Predicate> where = new ArrayList<>(2);
+        if (status != null) {
+            where.add(cb.equal(task.get("status"), status));
+        }
+        if (createdAt != null && id != null) {
+            where.add(cb.or(
+                    cb.lessThan(task.get("createdAt"), createdAt),
+                    cb.and(cb.equal(task.get("createdAt"), createdAt), cb.lessThan(task.get("id"), id))));
+        }
+        query.where(where.toArray(Predicate[]::new));
+        query.orderBy(QueryUtils.toOrders(sort, task, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private long count(TaskStatus status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Task> task = query.from(Task.class);
+        query.select(cb.count(task));
+        if (status != null) {
+            query.where(cb.equal(task.get("status"), status));
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static List<TaskResponse> toResponses(List<Tuple> rows, List<String> columns) {
+        return rows.stream().map(row -> toResponse(row, columns)).toList();
+    }
+
+    private static TaskResponse toResponse(Tuple row, List<String> columns) {
+        TaskResponse.TaskResponseBuilder response = TaskResponse.builder();
+        for (String column : columns) {
+            switch (column) {
+                case "id" -> response.id(row.get(column, Long.class));
+                case "title" -> response.title(row.get(column, String.class));
+                case "description" -> response.description(row.get(column, String.class));
+                case "status" -> response.status(row.get(column, TaskStatus.class));
+                case "createdAt" -> response.createdAt(row.get(column, LocalDateTime.class));
+                case "updatedAt" -> response.updatedAt(row.get(column, LocalDateTime.class));
+                case "version" -> response.version(row.get(column, Long.class));
+                default -> throw new IllegalStateException("Unmapped task field " + column);
+            }
+        }
+        return response.build();
+    }
+}
@@ -1,18 +1,241 @@
 package me.dhanur.tasks.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import me.dhanur.tasks.dto.TaskResponse;
 import me.dhanur.tasks.entity.Task;
 import me.dhanur.tasks.entity.TaskStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskProjectionRepository {
+
+    /**
+     * Select clause that reads tasks straight into responses, skipping entity hydration and the
+     * persistence context
+     */
+    String SELECT_RESPONSE = """
+            select new me.dhanur.tasks.dto.TaskResponse(
+                t.id, t.title, t.description, t.status, t.createdAt, t.updatedAt, t.version)
+            from Task t
+            """;
+
+    /**
+     * Read a task's status and lock its row until the transaction ends, so that the status a change moves
+     * away from is still current when the change is made
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t.status from Task t where t.id = :id")
+    Optional<TaskStatus> lockStatusById(@Param("id") Long id);
+
+    /**
+     * Set a task's status, bump its version and stamp the change, if it is still at the expected version
+     * (any version when null). Returns the number of rows changed. The caller evicts the task from the
+     * second-level cache.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Task t
+            set t.status = :status, t.version = t.version + 1, t.changeSeq = :changeSeq, t.updatedAt = :updatedAt
+            where t.id = :id and (:version is null or t.version = :version)""")
+    int updateStatus(@Param("id") Long id, @Param("version") Long expectedVersion, @Param("status") TaskStatus status,
+            @Param("changeSeq") long changeSeq, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Delete a task. Returns the number of rows deleted. The caller evicts the task from the second-level
+     * cache.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Task t where t.id = :id")
+    int deleteTaskById(@Param("id") Long id);
+
+    /**
+     * Find a page of tasks. The page and its count are kept in the query cache when that is enabled.
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(value = SELECT_RESPONSE, countQuery = "select count(t) from Task t")
+    Page<TaskResponse> findResponses(Pageable pageable);
+
+    /**
+     * Find a page of tasks by status. The page and its count are kept in the query cache when that is
+     * enabled.
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(value = SELECT_RESPONSE + "where t.status = :status",
+            countQuery = "select count(t) from Task t where t.status = :status")
+    Page<TaskResponse> findResponsesByStatus(@Param("status") TaskStatus status, Pageable pageable);
+
+    /**
+     * Find a page of tasks without counting the total
+     */
+    @Query(SELECT_RESPONSE)
+    Slice<TaskResponse> findResponseSlice(Pageable pageable);
+
+    /**
+     * Find a page of tasks by status without counting the total
+     */
+    @Query(SELECT_RESPONSE + "where t.status = :status")
+    Slice<TaskResponse> findResponseSliceByStatus(@Param("status") TaskStatus status, Pageable pageable);
+
+    long countByStatus(TaskStatus status);
 
     /**
-     * Find tasks by status with pagination
+     * Count tasks in every status that has any
      */
-    Page<Task> findByStatus(TaskStatus status, Pageable pageable);
+    @Query("select t.status as status, count(t) as count from Task t group by t.status")
+    List<StatusCount> countGroupedByStatus();
+
+    /**
+     * First page of the newest-first keyset ordering
+     */
+    @Query(SELECT_RESPONSE + "order by t.createdAt desc, t.id desc")
+    List<TaskResponse> findFirstResponses(Limit limit);
+
+    /**
+     * First page of the newest-first keyset ordering, filtered by status
+     */
+    @Query(SELECT_RESPONSE + "where t.status = :status order by t.createdAt desc, t.id desc")
+    List<TaskResponse> findFirstResponsesByStatus(@Param("status") TaskStatus status, Limit limit);
+
+    /**
+     * Tasks strictly after (createdAt, id) in newest-first order
+     */
+    @Query(SELECT_RESPONSE + """
+            where t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id)
+            order by t.createdAt desc, t.id desc""")
+    List<TaskResponse> findResponsesAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * Tasks with the given status strictly after (createdAt, id) in newest-first order
+     */
+    @Query(SELECT_RESPONSE + """
+            where t.status = :status
+              and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id))
+            order by t.createdAt desc, t.id desc""")
+    List<TaskResponse> findResponsesAfterByStatus(@Param("status") TaskStatus status,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    /**
+     * Every task newest first, read incrementally. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_RESPONSE + "order by t.createdAt desc, t.id desc")
+    Stream<TaskResponse> streamResponses();
+
+    /**
+     * Every task with the given status newest first, read incrementally. Must be consumed inside a
+     * transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_RESPONSE + "where t.status = :status order by t.createdAt desc, t.id desc")
+    Stream<TaskResponse> streamResponsesByStatus(@Param("status") TaskStatus status);
+
+    /**
+     * Every task's searchable fields, read incrementally. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select t.id as id, t.title as title, t.description as description, t.status as status,
+                t.changeSeq as changeSeq
+            from Task t""")
+    Stream<SearchableTask> streamSearchable();
+
+    /**
+     * Every task with the position of its last change, read incrementally. Must be consumed inside a
+     * transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select t.id as id, t.title as title, t.description as description, t.status as status,
+                t.createdAt as createdAt, t.updatedAt as updatedAt, t.version as version, t.changeSeq as changeSeq
+            from Task t""")
+    Stream<BoardTask> streamBoard();
+
+    /**
+     * Tasks with the given ids, in no particular order
+     */
+    @Query(SELECT_RESPONSE + "where t.id in :ids")
+    List<TaskResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find tasks changed after one change sequence value, up to and including another
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + "where t.changeSeq > :after and t.changeSeq <= :upTo")
+    List<TaskResponse> findResponsesChangedBetween(@Param("after") long after, @Param("upTo") long upTo);
+
+    @Query("select coalesce(max(t.changeSeq), 0) from Task t")
+    long findMaxChangeSeq();
+
+    interface StatusCount {
+
+        TaskStatus getStatus();
+
+        long getCount();
+    }
+
+    interface SearchableTask {
+
+        Long getId();
+
+        String getTitle();
+
+        String getDescription();
+
+        TaskStatus getStatus();
+
+        long getChangeSeq();
+    }
+
+    interface BoardTask {
+
+        Long getId();
+
+        String getTitle();
+
+        String getDescription();
+
+        TaskStatus getStatus();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getUpdatedAt();
+
+        Long getVersion();
 
+        long getChangeSeq();
+    }
 }
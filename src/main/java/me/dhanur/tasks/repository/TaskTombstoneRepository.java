@@ -0,0 +1,20 @@
+package me.dhanur.tasks.repository;
+
+import me.dhanur.tasks.entity.TaskTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, Long> {
+
+    /**
+     * Find tombstones recorded after one change sequence value, up to and including another
+     */
+    List<TaskTombstone> findByChangeSeqGreaterThanAndChangeSeqLessThanEqual(long after, long upTo);
+
+    @Query("select coalesce(max(t.changeSeq), 0) from TaskTombstone t")
+    long findMaxChangeSeq();
+}
@@ -0,0 +1,233 @@
+package me.dhanur.tasks.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "auth")
+public class AuthProperties {
+
+    /**
+     * Base URL of the auth service, without a trailing slash
+     */
+    private String serviceUrl = "https://auth.dhanur.me";
+
+    private final Cache cache = new Cache();
+
+    private final Lease lease = new Lease();
+
+    private final Refunds refunds = new Refunds();
+
+    private final Resilience resilience = new Resilience();
+
+    private final Token token = new Token();
+
+    public String getServiceUrl() {
+        return serviceUrl.replaceAll("/$", "");
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * Whether /api/status results are cached per credential set
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of cached sessions before size-based eviction kicks in
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * How long an authenticated status is served from the cache
+         */
+        private Duration positiveTtl = Duration.ofSeconds(60);
+
+        /**
+         * How long an unauthenticated status is served from the cache
+         */
+        private Duration negativeTtl = Duration.ofSeconds(5);
+
+        /**
+         * Age after which a hit triggers a background refresh while the cached value is still served
+         */
+        private Duration refreshAfter = Duration.ofSeconds(30);
+
+        /**
+         * How long past its TTL an authenticated status may still be served while the auth service
+         * is failing, when the status fallback is STALE
+         */
+        private Duration staleIfError = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Lease {
+
+        /**
+         * Whether credits are reserved in blocks per session and debited locally
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of credits reserved from the auth service per lease
+         */
+        private int blockSize = 20;
+
+        /**
+         * How long a lease may go unused before its remaining credits are returned
+         */
+        private Duration idleTimeout = Duration.ofMinutes(5);
+
+        /**
+         * Maximum lifetime of a lease, bounding how long credits are held away from the auth service
+         */
+        private Duration maxAge = Duration.ofMinutes(30);
+
+        /**
+         * How often idle and expired leases are settled
+         */
+        private Duration settleInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Refunds {
+
+        /**
+         * Append-only file that pending refunds are journaled to
+         */
+        private String journal = "./data/refunds.log";
+
+        /**
+         * Base64 AES key that caller credentials are encrypted with in the journal. Without one, a key is
+         * generated on startup and refunds left in the journal by an earlier run cannot be replayed.
+         */
+        private String journalKey;
+
+        /**
+         * Whether each enqueued refund is flushed to disk before the request completes. Requests that
+         * enqueue at the same time share one flush.
+         */
+        private boolean fsync = true;
+
+        /**
+         * Delay before the first retry of a failed refund, doubled on each further attempt
+         */
+        private Duration initialBackoff = Duration.ofSeconds(1);
+
+        /**
+         * Upper bound for the retry delay
+         */
+        private Duration maxBackoff = Duration.ofMinutes(5);
+
+        /**
+         * Delivery attempts before a refund is abandoned and logged
+         */
+        private int maxAttempts = 20;
+    }
+
+    @Data
+    public static class Resilience {
+
+        /**
+         * What callers get when /api/status cannot be reached: GUEST rejects them, STALE serves the
+         * last known authenticated status for up to cache.stale-if-error
+         */
+        private StatusFallback statusFallback = StatusFallback.GUEST;
+
+        /**
+         * What happens to a write when /api/credits/use cannot be reached: DENY rejects it,
+         * ALLOW lets it through without charging
+         */
+        private DebitFallback debitFallback = DebitFallback.DENY;
+
+        /**
+         * Failure percentage over the sliding window at which a breaker opens
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * Number of most recent calls the failure rate is computed over
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Calls that must be recorded before the failure rate is evaluated
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * How long an open breaker rejects calls before probing again
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Probe calls let through while half-open; all must succeed for the breaker to close
+         */
+        private int halfOpenCalls = 3;
+
+        /**
+         * Maximum concurrent calls per endpoint
+         */
+        private int maxConcurrentCalls = 50;
+
+        /**
+         * How long a call waits for a free slot before falling back
+         */
+        private Duration maxWait = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Token {
+
+        /**
+         * REMOTE asks /api/status for every caller; LOCAL verifies signed bearer tokens against
+         * the keys file and only asks /api/status for cookies and opaque tokens
+         */
+        private TokenMode mode = TokenMode.REMOTE;
+
+        /**
+         * JWKS document or PEM public keys used to verify bearer tokens
+         */
+        private String keysFile;
+
+        /**
+         * How often the keys file is checked for changes
+         */
+        private Duration reloadInterval = Duration.ofSeconds(30);
+
+        /**
+         * Required iss claim, if set
+         */
+        private String issuer;
+
+        /**
+         * Required aud claim, if set
+         */
+        private String audience;
+
+        /**
+         * Claim that carries the caller's role
+         */
+        private String roleClaim = "role";
+
+        /**
+         * Tolerance applied to exp and nbf
+         */
+        private Duration clockSkew = Duration.ofSeconds(30);
+    }
+
+    public enum TokenMode {
+        REMOTE, LOCAL
+    }
+
+    public enum StatusFallback {
+        GUEST, STALE
+    }
+
+    public enum DebitFallback {
+        DENY, ALLOW
+    }
+}
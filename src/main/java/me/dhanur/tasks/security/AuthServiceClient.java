@@ -0,0 +1,170 @@
+package me.dhanur.tasks.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Blocking client for the auth service status and credit endpoints.
+ * Each endpoint has its own circuit breaker and bulkhead; when either rejects a call, or the call
+ * fails, the configured fallback is returned instead of waiting on the auth service.
+ */
+@Component
+public class AuthServiceClient {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final HttpClient HTTP = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(3))
+            .build();
+
+    private final AuthProperties authProperties;
+    private final ResilientEndpoint statusEndpoint;
+    private final ResilientEndpoint useEndpoint;
+    private final ResilientEndpoint refundEndpoint;
+
+    public AuthServiceClient(AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.authProperties = authProperties;
+        AuthProperties.Resilience resilience = authProperties.getResilience();
+        this.statusEndpoint = new ResilientEndpoint("status", resilience, meterRegistry);
+        this.useEndpoint = new ResilientEndpoint("credits-use", resilience, meterRegistry);
+        this.refundEndpoint = new ResilientEndpoint("credits-refund", resilience, meterRegistry);
+    }
+
+    /**
+     * Ask the auth service who the caller is. Returns null when the answer is indeterminate
+     * (transport failure, 5xx or an open breaker) so that the result is not cached.
+     */
+    AuthStatus fetchStatus(Credentials credentials) {
+        return statusEndpoint.call(() -> requestStatus(credentials), status -> status == null, () -> null);
+    }
+
+    CreditUseResult useCredits(Credentials credentials, int amount, String description) {
+        return useEndpoint.call(() -> requestUseCredits(credentials, amount, description),
+                result -> result.statusCode == 0 || result.statusCode >= 500,
+                this::debitFallback);
+    }
+
+    /**
+     * Return credits to the caller's balance. A 401 or 403 means the credentials are no longer accepted;
+     * anything else short of success leaves it open whether the refund was applied.
+     */
+    RefundOutcome refundCredits(Credentials credentials, int amount) {
+        int status = refundEndpoint.call(() -> requestRefund(credentials, amount),
+                code -> code == 0 || code >= 500, () -> 0);
+        if (status >= 200 && status < 300) {
+            return RefundOutcome.REFUNDED;
+        }
+        return status == 401 || status == 403 ? RefundOutcome.REJECTED : RefundOutcome.FAILED;
+    }
+
+    List<ResilientEndpoint> endpoints() {
+        return List.of(statusEndpoint, useEndpoint, refundEndpoint);
+    }
+
+    private CreditUseResult debitFallback() {
+        return authProperties.getResilience().getDebitFallback() == AuthProperties.DebitFallback.ALLOW
+                ? CreditUseResult.unbilled()
+                : CreditUseResult.failed("Could not validate credits");
+    }
+
+    private AuthStatus requestStatus(Credentials credentials) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(authProperties.getServiceUrl() + "/api/status"))
+                    .timeout(Duration.ofSeconds(3))
+                    .GET();
+
+            HttpResponse<String> resp = HTTP.send(credentials.applyTo(builder).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                return OBJECT_MAPPER.readValue(resp.body(), AuthStatus.class);
+            }
+            if (resp.statusCode() < 500) {
+                return AuthStatus.guest();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
+        }
+
+        return null;
+    }
+
+    private CreditUseResult requestUseCredits(Credentials credentials, int amount, String description) {
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("service", "tasks");
+            payload.put("amount", amount);
+            payload.put("description", description);
+
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(authProperties.getServiceUrl() + "/api/credits/use"))
+                    .timeout(Duration.ofSeconds(4))
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(payload)));
+
+            HttpResponse<String> resp = HTTP.send(credentials.applyTo(builder).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (resp.statusCode() >= 500) {
+                CreditUseResult result = CreditUseResult.failed("Could not validate credits");
+                result.statusCode = resp.statusCode();
+                return result;
+            }
+
+            CreditUseResult result = OBJECT_MAPPER.readValue(resp.body(), CreditUseResult.class);
+            result.statusCode = resp.statusCode();
+
+            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                result.success = true;
+                return result;
+            }
+
+            if (result.error == null || result.error.isBlank()) {
+                result.error = "Credit debit failed";
+            }
+            result.success = false;
+            return result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return CreditUseResult.failed("Could not validate credits");
+        } catch (Exception ex) {
+            return CreditUseResult.failed("Could not validate credits");
+        }
+    }
+
+    /**
+     * Returns the HTTP status of the refund call, or 0 if it could not be completed
+     */
+    private int requestRefund(Credentials credentials, int amount) {
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("service", "tasks");
+            payload.put("amount", amount);
+
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(authProperties.getServiceUrl() + "/api/credits/refund"))
+                    .timeout(Duration.ofSeconds(3))
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(payload)));
+
+            HttpResponse<Void> resp = HTTP.send(credentials.applyTo(builder).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return resp.statusCode();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (Exception ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.dhanur.tasks.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes circuit breaker and bulkhead state for the auth service endpoints at /actuator/authservice
+ */
+@Component
+@Endpoint(id = "authservice")
+@RequiredArgsConstructor
+public class AuthServiceEndpoint {
+
+    private final AuthServiceClient authServiceClient;
+    private final AuthProperties authProperties;
+
+    @ReadOperation
+    public Map<String, Object> breakers() {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        authServiceClient.endpoints().forEach(endpoint -> endpoints.put(endpoint.getName(), endpoint.describe()));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("serviceUrl", authProperties.getServiceUrl());
+        body.put("statusFallback", authProperties.getResilience().getStatusFallback());
+        body.put("debitFallback", authProperties.getResilience().getDebitFallback());
+        body.put("endpoints", endpoints);
+        return body;
+    }
+}
@@ -0,0 +1,16 @@
+package me.dhanur.tasks.security;
+
+/**
+ * Body of the auth service /api/status response
+ */
+class AuthStatus {
+    public boolean authenticated;
+    public String role;
+
+    static AuthStatus guest() {
+        AuthStatus status = new AuthStatus();
+        status.authenticated = false;
+        status.role = "guest";
+        return status;
+    }
+}
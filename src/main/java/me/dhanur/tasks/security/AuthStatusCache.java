@@ -0,0 +1,154 @@
+package me.dhanur.tasks.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of auth service /api/status results keyed by a digest of the caller's credentials.
+ * Entries older than the refresh threshold are still served while a background reload replaces them.
+ * With the STALE status fallback, authenticated entries are retained past their TTL and served only
+ * when a reload cannot get an answer from the auth service.
+ */
+@Component
+@Slf4j
+public class AuthStatusCache {
+
+    private final AuthProperties.Cache properties;
+    private final Duration staleGrace;
+    private final Cache<String, Entry> cache;
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AuthStatusCache(AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.properties = authProperties.getCache();
+        this.staleGrace = authProperties.getResilience().getStatusFallback() == AuthProperties.StatusFallback.STALE
+                ? properties.getStaleIfError()
+                : Duration.ZERO;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new StatusExpiry(staleGrace))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.status");
+    }
+
+    /**
+     * Resolve the auth status for the given credentials, calling the loader on a miss.
+     * The loader returns null when the outcome is indeterminate (e.g. the auth service is unreachable);
+     * such results are never cached and resolve to a guest.
+     */
+    AuthStatus get(Credentials credentials, Function<Credentials, AuthStatus> loader) {
+        if (!properties.isEnabled()) {
+            return orGuest(loader.apply(credentials));
+        }
+
+        String key = credentials.digest();
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            // Freshly loaded, so there is nothing to expire or refresh yet
+            Entry loaded = cache.get(key, k -> load(credentials, loader));
+            return loaded != null ? loaded.status : AuthStatus.guest();
+        }
+
+        if (entry.isExpired()) {
+            // Only reachable while the entry is inside its stale-if-error grace period
+            Entry fresh = load(credentials, loader);
+            if (fresh == null) {
+                return entry.status;
+            }
+            cache.put(key, fresh);
+            return fresh.status;
+        }
+
+        if (entry.isOlderThan(properties.getRefreshAfter()) && entry.refreshing.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> refresh(key, entry, credentials, loader));
+        }
+        return entry.status;
+    }
+
+    /**
+     * Drop the cached status for the given credentials
+     */
+    void invalidate(Credentials credentials) {
+        cache.invalidate(credentials.digest());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void refresh(String key, Entry stale, Credentials credentials, Function<Credentials, AuthStatus> loader) {
+        try {
+            Entry fresh = load(credentials, loader);
+            if (fresh != null) {
+                cache.asMap().replace(key, stale, fresh);
+            }
+        } catch (RuntimeException ex) {
+            log.debug("Background auth status refresh failed: {}", ex.getMessage());
+        } finally {
+            stale.refreshing.set(false);
+        }
+    }
+
+    private Entry load(Credentials credentials, Function<Credentials, AuthStatus> loader) {
+        AuthStatus loaded = loader.apply(credentials);
+        if (loaded == null) {
+            return null;
+        }
+        return new Entry(loaded, loaded.authenticated ? properties.getPositiveTtl() : properties.getNegativeTtl());
+    }
+
+    private static AuthStatus orGuest(AuthStatus status) {
+        return status != null ? status : AuthStatus.guest();
+    }
+
+    private static final class Entry {
+        final AuthStatus status;
+        final Duration ttl;
+        final long loadedAt = System.nanoTime();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(AuthStatus status, Duration ttl) {
+            this.status = status;
+            this.ttl = ttl;
+        }
+
+        boolean isExpired() {
+            return isOlderThan(ttl);
+        }
+
+        boolean isOlderThan(Duration age) {
+            return System.nanoTime() - loadedAt >= age.toNanos();
+        }
+    }
+
+    private record StatusExpiry(Duration staleGrace) implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.status.authenticated ? entry.ttl.plus(staleGrace).toNanos() : entry.ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
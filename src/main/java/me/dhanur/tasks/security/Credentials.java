@@ -0,0 +1,71 @@
+package me.dhanur.tasks.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Caller credentials forwarded to the auth service
+ */
+record Credentials(String cookie, String authorization) {
+
+    static Credentials from(HttpServletRequest request) {
+        return new Credentials(request.getHeader("Cookie"), request.getHeader("Authorization"));
+    }
+
+    boolean isPresent() {
+        return (cookie != null && !cookie.isBlank()) || (authorization != null && !authorization.isBlank());
+    }
+
+    /**
+     * The token from a {@code Bearer} Authorization header, or null if there is none
+     */
+    String bearerToken() {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        String token = authorization.substring(7).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    /**
+     * Copy the credential headers onto an outgoing auth service request
+     */
+    HttpRequest.Builder applyTo(HttpRequest.Builder builder) {
+        if (cookie != null && !cookie.isBlank()) {
+            builder.header("Cookie", cookie);
+        }
+        if (authorization != null && !authorization.isBlank()) {
+            builder.header("Authorization", authorization);
+        }
+        return builder;
+    }
+
+    /**
+     * SHA-256 of the credential headers, used as a cache key so raw secrets are never stored as keys
+     */
+    String digest() {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(nullToEmpty(cookie).getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            sha256.update(nullToEmpty(authorization).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Credentials[redacted]";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,201 @@
+package me.dhanur.tasks.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Charges one credit per write request.
+ * <p>
+ * With leasing enabled, a block of credits is reserved per session with a single remote debit and
+ * later writes are charged against it in memory. Refunds for failed writes go back into the lease.
+ * Unused credits are returned to the auth service in periodic batches once a lease goes idle or
+ * reaches its maximum age, and for every open lease on shutdown. Because blocks are paid up front a
+ * session can never spend more than its balance; the most that can be lost on a crash is one block.
+ */
+@Component
+public class CreditLedger {
+
+    private static final int CLOSED = Integer.MIN_VALUE / 2;
+
+    private final AuthServiceClient authServiceClient;
+    private final RefundQueue refundQueue;
+    private final AuthProperties.Lease properties;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final ExecutorService remoteCalls = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter localDebits;
+    private final Counter remoteDebits;
+
+    public CreditLedger(AuthServiceClient authServiceClient, RefundQueue refundQueue,
+            AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.authServiceClient = authServiceClient;
+        this.refundQueue = refundQueue;
+        this.properties = authProperties.getLease();
+        this.localDebits = meterRegistry.counter("auth.credits.debits", "source", "lease");
+        this.remoteDebits = meterRegistry.counter("auth.credits.debits", "source", "remote");
+        meterRegistry.gauge("auth.credits.leases.active", leases, Map::size);
+        meterRegistry.gauge("auth.credits.leases.held", leases,
+                l -> l.values().stream().mapToInt(Lease::available).sum());
+    }
+
+    /**
+     * Charge one credit. Completes immediately when an open lease covers it, otherwise
+     * completes once the remote debit or lease reservation has been answered.
+     */
+    CompletableFuture<CreditUseResult> debit(Credentials credentials, String operation) {
+        if (properties.isEnabled()) {
+            Lease lease = leases.get(credentials.digest());
+            if (lease != null && lease.tryAcquire()) {
+                localDebits.increment();
+                return CompletableFuture.completedFuture(CreditUseResult.ok(true));
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> debitRemote(credentials, operation), remoteCalls);
+    }
+
+    /**
+     * Give back a credit charged for a request that did not succeed. Leased credits go straight
+     * back into the lease; anything else is handed to the refund queue.
+     */
+    void refund(Credentials credentials, CreditUseResult charge) {
+        if (charge.unbilled) {
+            return;
+        }
+        if (charge.leased) {
+            Lease lease = leases.get(credentials.digest());
+            if (lease != null && lease.release(1)) {
+                return;
+            }
+        }
+        refundQueue.enqueue(credentials, 1);
+    }
+
+    /**
+     * Return unused credits for leases that are idle or past their maximum age
+     */
+    @Scheduled(fixedDelayString = "${auth.lease.settle-interval:30s}")
+    void settle() {
+        long now = System.nanoTime();
+        leases.forEach((key, lease) -> {
+            if (lease.isIdle(now, properties.getIdleTimeout()) || lease.isOlderThan(now, properties.getMaxAge())) {
+                close(key, lease);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        leases.forEach(this::close);
+        remoteCalls.shutdown();
+    }
+
+    private CreditUseResult debitRemote(Credentials credentials, String operation) {
+        if (!properties.isEnabled() || properties.getBlockSize() <= 1) {
+            remoteDebits.increment();
+            return authServiceClient.useCredits(credentials, 1, operation);
+        }
+
+        String key = credentials.digest();
+        Lease lease = leases.computeIfAbsent(key, k -> new Lease(credentials));
+        lease.reserveLock.lock();
+        try {
+            // Another request may have topped the lease up while this one waited for the lock
+            if (lease.tryAcquire()) {
+                localDebits.increment();
+                return CreditUseResult.ok(true);
+            }
+
+            remoteDebits.increment();
+            int block = properties.getBlockSize();
+            CreditUseResult reservation = authServiceClient.useCredits(credentials, block, "task_api_credit_lease");
+            if (reservation.unbilled) {
+                return reservation;
+            }
+            if (!reservation.success) {
+                // The balance may be too low for a whole block; fall back to a single debit
+                return reservation.statusCode >= 400 && reservation.statusCode < 500
+                        && reservation.statusCode != 401
+                        ? authServiceClient.useCredits(credentials, 1, operation)
+                        : reservation;
+            }
+
+            if (!lease.release(block - 1)) {
+                // Lease was settled concurrently; start a fresh one holding the reserved credits
+                Lease fresh = new Lease(credentials);
+                fresh.release(block - 1);
+                leases.put(key, fresh);
+            }
+            return CreditUseResult.ok(true);
+        } finally {
+            lease.reserveLock.unlock();
+        }
+    }
+
+    private void close(String key, Lease lease) {
+        int unused = lease.close();
+        leases.remove(key, lease);
+        refundQueue.enqueue(lease.credentials, unused);
+    }
+
+    private static final class Lease {
+        final Credentials credentials;
+        final AtomicInteger remaining = new AtomicInteger();
+        final ReentrantLock reserveLock = new ReentrantLock();
+        final long openedAt = System.nanoTime();
+        volatile long lastUsedAt = openedAt;
+
+        Lease(Credentials credentials) {
+            this.credentials = credentials;
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - 1)) {
+                    lastUsedAt = System.nanoTime();
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Put credits back into the lease. Returns false if the lease has already been settled.
+         */
+        boolean release(int amount) {
+            return remaining.getAndUpdate(current -> current < 0 ? current : current + amount) >= 0;
+        }
+
+        /**
+         * Close the lease and return the number of credits it still held
+         */
+        int close() {
+            return Math.max(remaining.getAndSet(CLOSED), 0);
+        }
+
+        int available() {
+            return Math.max(remaining.get(), 0);
+        }
+
+        boolean isIdle(long now, Duration idleTimeout) {
+            return now - lastUsedAt >= idleTimeout.toNanos();
+        }
+
+        boolean isOlderThan(long now, Duration maxAge) {
+            return now - openedAt >= maxAge.toNanos();
+        }
+    }
+}
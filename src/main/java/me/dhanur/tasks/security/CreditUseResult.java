@@ -0,0 +1,49 @@
+package me.dhanur.tasks.security;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Outcome of a credit debit, either answered by the auth service or from a local lease
+ */
+class CreditUseResult {
+    public boolean success;
+    public String error;
+
+    /**
+     * True when the credit came out of a prepaid lease rather than a direct remote debit
+     */
+    @JsonIgnore
+    boolean leased;
+
+    /**
+     * True when the write was let through without charging because the auth service was unavailable
+     */
+    @JsonIgnore
+    boolean unbilled;
+
+    /**
+     * HTTP status of the remote debit, or 0 when it was not answered by the auth service
+     */
+    @JsonIgnore
+    int statusCode;
+
+    static CreditUseResult ok(boolean leased) {
+        CreditUseResult result = new CreditUseResult();
+        result.success = true;
+        result.leased = leased;
+        return result;
+    }
+
+    static CreditUseResult unbilled() {
+        CreditUseResult result = ok(false);
+        result.unbilled = true;
+        return result;
+    }
+
+    static CreditUseResult failed(String error) {
+        CreditUseResult result = new CreditUseResult();
+        result.success = false;
+        result.error = error;
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package me.dhanur.tasks.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Seals caller credentials for the refund journal with AES-GCM, bound to the credential digest they are
+ * journaled under, so the journal never holds a usable cookie or token in the clear.
+ */
+final class JournalCipher {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKey key;
+    private final boolean ephemeral;
+
+    private JournalCipher(SecretKey key, boolean ephemeral) {
+        this.key = key;
+        this.ephemeral = ephemeral;
+    }
+
+    /**
+     * A cipher for a Base64 AES key; without one, a fresh key that lives only as long as this process
+     */
+    static JournalCipher forKey(String base64Key) {
+        if (base64Key == null || base64Key.isBlank()) {
+            try {
+                KeyGenerator generator = KeyGenerator.getInstance("AES");
+                generator.init(256, RANDOM);
+                return new JournalCipher(generator.generateKey(), true);
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("AES not available", ex);
+            }
+        }
+        byte[] bytes = Base64.getDecoder().decode(base64Key.trim());
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+            throw new IllegalArgumentException("Refund journal key must be a Base64 AES key of 16, 24 or 32 bytes");
+        }
+        return new JournalCipher(new SecretKeySpec(bytes, "AES"), false);
+    }
+
+    /**
+     * Whether the key was generated for this process, so that nothing sealed by an earlier one can be opened
+     */
+    boolean isEphemeral() {
+        return ephemeral;
+    }
+
+    String seal(Credentials credentials) {
+        Map<String, String> headers = new HashMap<>();
+        if (credentials.cookie() != null) {
+            headers.put("cookie", credentials.cookie());
+        }
+        if (credentials.authorization() != null) {
+            headers.put("authorization", credentials.authorization());
+        }
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(credentials.digest().getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(OBJECT_MAPPER.writeValueAsBytes(headers));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length)
+                    .put(iv).put(sealed).array());
+        } catch (GeneralSecurityException | IOException ex) {
+            throw new IllegalStateException("Could not seal refund credentials", ex);
+        }
+    }
+
+    /**
+     * The credentials sealed for the given digest, or null if they were sealed with another key, under
+     * another digest, or have been tampered with
+     */
+    Credentials open(String sealed, String digest) {
+        try {
+            byte[] bytes = Base64.getDecoder().decode(sealed);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+            cipher.updateAAD(digest.getBytes(StandardCharsets.UTF_8));
+            byte[] plain = cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+            Map<String, String> headers = OBJECT_MAPPER.readValue(plain, new TypeReference<>() {
+            });
+            return new Credentials(headers.get("cookie"), headers.get("authorization"));
+        } catch (GeneralSecurityException | IllegalArgumentException | IOException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package me.dhanur.tasks.security;
+
+/**
+ * How the auth service answered a credit refund
+ */
+enum RefundOutcome {
+
+    /**
+     * The credits were returned to the caller
+     */
+    REFUNDED,
+
+    /**
+     * The auth service no longer accepts the caller's credentials, typically because the session or token
+     * has expired; asking again will not help
+     */
+    REJECTED,
+
+    /**
+     * No definite answer, so the refund may not have been applied and can be retried
+     */
+    FAILED
+}
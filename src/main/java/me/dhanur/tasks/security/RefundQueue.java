@@ -0,0 +1,425 @@
+package me.dhanur.tasks.security;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable queue of credit refunds owed to callers.
+ * <p>
+ * Every refund is appended to a local journal before {@link #enqueue} returns, so it survives a restart.
+ * The flush to disk happens outside the queue's lock, and refunds enqueued while one flush is running
+ * share the next. A background worker coalesces pending refunds per session into one /api/credits/refund
+ * call and retries with exponential backoff; delivered refunds are acknowledged in the journal, which is
+ * truncated whenever nothing is pending and compacted on startup.
+ * <p>
+ * Replaying a refund needs the caller's credential headers, so the journal keeps them encrypted under the
+ * configured journal key, next to their digest, and is created readable by the owner only. On startup,
+ * refunds whose credentials cannot be decrypted, because the key changed or was generated by an earlier
+ * run, are abandoned and logged by digest. Replayed credentials may have expired in the meantime; the auth
+ * service then rejects the refund, which is abandoned at once rather than retried.
+ */
+@Component
+@Slf4j
+public class RefundQueue {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final AuthServiceClient authServiceClient;
+    private final AuthProperties.Refunds properties;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private final Counter delivered;
+    private final Counter abandoned;
+    private final JournalCipher cipher;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Thread worker;
+    private FileChannel journal;
+    private long nextSeq = 1;
+    private volatile long appended;
+    private long synced;
+    private volatile int depth;
+    private volatile boolean running = true;
+
+    public RefundQueue(AuthServiceClient authServiceClient, AuthProperties authProperties,
+            MeterRegistry meterRegistry) {
+        this.authServiceClient = authServiceClient;
+        this.properties = authProperties.getRefunds();
+        this.delivered = meterRegistry.counter("auth.refunds.delivered");
+        this.abandoned = meterRegistry.counter("auth.refunds.abandoned");
+        meterRegistry.gauge("auth.refunds.queue.depth", this, queue -> queue.depth);
+        meterRegistry.gauge("auth.refunds.queue.sessions", pending, Map::size);
+        this.cipher = JournalCipher.forKey(properties.getJournalKey());
+        if (cipher.isEphemeral()) {
+            log.warn("No refund journal key configured; refunds pending at shutdown will not be replayed");
+        }
+
+        openJournal();
+        this.worker = Thread.ofVirtual().name("refund-worker").start(this::drain);
+    }
+
+    /**
+     * Record that the caller is owed credits. Returns once the refund is journaled; delivery happens later.
+     */
+    void enqueue(Credentials credentials, int amount) {
+        if (amount <= 0) {
+            return;
+        }
+        long position;
+        lock.lock();
+        try {
+            long seq = nextSeq++;
+            position = append(JournalEntry.add(seq, credentials, amount, cipher));
+            pending.computeIfAbsent(credentials.digest(), k -> new Pending(credentials)).add(seq, amount);
+            depth++;
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (properties.isFsync()) {
+            sync(position);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(Duration.ofSeconds(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException ex) {
+            log.warn("Could not close refund journal: {}", ex.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                List<Pending> due = awaitDue();
+                for (Pending batch : due) {
+                    deliver(batch);
+                }
+            } catch (InterruptedException ex) {
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Refund worker failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Block until at least one session is due for delivery and return a snapshot of the due sessions
+     */
+    private List<Pending> awaitDue() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long wait = Long.MAX_VALUE;
+                List<Pending> due = new ArrayList<>();
+                for (Pending p : pending.values()) {
+                    long remaining = p.nextAttemptAt - now;
+                    if (remaining <= 0) {
+                        due.add(p.snapshot());
+                    } else {
+                        wait = Math.min(wait, remaining);
+                    }
+                }
+                if (!due.isEmpty()) {
+                    return due;
+                }
+                if (wait == Long.MAX_VALUE) {
+                    wakeUp.await();
+                } else {
+                    wakeUp.awaitNanos(wait);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void deliver(Pending batch) {
+        RefundOutcome outcome = authServiceClient.refundCredits(batch.credentials, batch.amount);
+
+        lock.lock();
+        try {
+            String key = batch.credentials.digest();
+            Pending current = pending.get(key);
+            if (current == null) {
+                return;
+            }
+            if (outcome != RefundOutcome.FAILED || current.attempts + 1 >= properties.getMaxAttempts()) {
+                if (outcome == RefundOutcome.REFUNDED) {
+                    delivered.increment(batch.amount);
+                } else if (outcome == RefundOutcome.REJECTED) {
+                    abandoned.increment(batch.amount);
+                    log.error("Auth service rejected refund of {} credits, the caller's credentials have likely expired",
+                            batch.amount);
+                } else {
+                    abandoned.increment(batch.amount);
+                    log.error("Giving up on refund of {} credits after {} attempts", batch.amount, current.attempts + 1);
+                }
+                for (long seq : batch.seqs) {
+                    append(JournalEntry.ack(seq));
+                }
+                current.remove(batch);
+                depth -= batch.seqs.size();
+                if (current.seqs.isEmpty()) {
+                    pending.remove(key);
+                }
+                if (pending.isEmpty()) {
+                    truncateJournal();
+                }
+            } else {
+                current.attempts++;
+                current.nextAttemptAt = System.nanoTime() + backoff(current.attempts).toNanos();
+                log.warn("Refund of {} credits failed, retry {} scheduled", batch.amount, current.attempts);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+    }
+
+    private void openJournal() {
+        Path path = Path.of(properties.getJournal());
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path)) {
+                replay(path);
+            }
+            compact(path);
+            journal = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            log.info("Refund journal at {} holds {} pending refunds", path, depth);
+        } catch (IOException ex) {
+            log.error("Refund journal {} unavailable, refunds will not survive a restart: {}", path, ex.getMessage());
+        }
+    }
+
+    private void replay(Path path) throws IOException {
+        Map<Long, JournalEntry> open = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JournalEntry entry = OBJECT_MAPPER.readValue(line, JournalEntry.class);
+                if (entry.ack != null) {
+                    open.remove(entry.ack);
+                    nextSeq = Math.max(nextSeq, entry.ack + 1);
+                } else if (entry.seq != null && entry.amount != null) {
+                    open.put(entry.seq, entry);
+                    nextSeq = Math.max(nextSeq, entry.seq + 1);
+                } else {
+                    log.warn("Skipping refund journal line with neither a refund nor an acknowledgement");
+                }
+            } catch (IOException ex) {
+                // A torn final line from a crash mid-append; everything before it is intact
+                log.warn("Skipping unreadable refund journal line");
+            }
+        }
+        for (JournalEntry entry : open.values()) {
+            Credentials credentials = entry.credentials(cipher);
+            if (credentials == null) {
+                abandoned.increment(entry.amount);
+                log.error("Abandoning refund of {} credits for session {}: its credentials were encrypted with another key",
+                        entry.amount, entry.session);
+                continue;
+            }
+            pending.computeIfAbsent(credentials.digest(), k -> new Pending(credentials)).add(entry.seq, entry.amount);
+            depth++;
+        }
+    }
+
+    /**
+     * Rewrite the journal with only the refunds that are still pending
+     */
+    private void compact(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        StringBuilder contents = new StringBuilder();
+        for (Pending p : pending.values()) {
+            for (int i = 0; i < p.seqs.size(); i++) {
+                contents.append(OBJECT_MAPPER.writeValueAsString(
+                        JournalEntry.add(p.seqs.get(i), p.credentials, p.amounts.get(i), cipher))).append('\n');
+            }
+        }
+        Files.writeString(tmp, contents, StandardCharsets.UTF_8);
+        restrictPermissions(tmp);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write an entry to the journal without flushing it. Returns how many bytes have been appended since
+     * startup, the position to pass to {@link #sync} to make this entry durable.
+     */
+    private long append(JournalEntry entry) {
+        if (journal == null) {
+            return appended;
+        }
+        try {
+            byte[] line = (OBJECT_MAPPER.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+            journal.write(ByteBuffer.wrap(line));
+            appended += line.length;
+        } catch (IOException ex) {
+            log.error("Could not append to refund journal: {}", ex.getMessage());
+        }
+        return appended;
+    }
+
+    /**
+     * Flush the journal to disk at least up to the given position. Called without the queue's lock held;
+     * callers that wait here while another flush runs are usually covered by it and return at once.
+     */
+    private void sync(long position) {
+        syncLock.lock();
+        try {
+            if (journal == null || synced >= position) {
+                return;
+            }
+            long target = appended;
+            journal.force(false);
+            synced = target;
+        } catch (IOException ex) {
+            log.error("Could not flush refund journal: {}", ex.getMessage());
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void truncateJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.truncate(0);
+        } catch (IOException ex) {
+            log.warn("Could not truncate refund journal: {}", ex.getMessage());
+        }
+    }
+
+    private static void restrictPermissions(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException ignored) {
+        }
+    }
+
+    /**
+     * Refunds owed to a single session, delivered together
+     */
+    private static final class Pending {
+        final Credentials credentials;
+        final List<Long> seqs = new ArrayList<>();
+        final List<Integer> amounts = new ArrayList<>();
+        int amount;
+        int attempts;
+        long nextAttemptAt = System.nanoTime();
+
+        Pending(Credentials credentials) {
+            this.credentials = credentials;
+        }
+
+        void add(long seq, int credits) {
+            seqs.add(seq);
+            amounts.add(credits);
+            amount += credits;
+        }
+
+        Pending snapshot() {
+            Pending copy = new Pending(credentials);
+            for (int i = 0; i < seqs.size(); i++) {
+                copy.add(seqs.get(i), amounts.get(i));
+            }
+            return copy;
+        }
+
+        void remove(Pending batch) {
+            int n = batch.seqs.size();
+            seqs.subList(0, n).clear();
+            amounts.subList(0, n).clear();
+            amount -= batch.amount;
+            attempts = 0;
+            nextAttemptAt = System.nanoTime();
+        }
+    }
+
+    private static class JournalEntry {
+        public Long seq;
+        public Long ack;
+        public Integer amount;
+        public String session;
+        public String credentials;
+
+        /**
+         * Plain credential headers, only found in journals written before they were encrypted; read so
+         * that those refunds are still replayed, and encrypted when the journal is compacted
+         */
+        public String cookie;
+        public String authorization;
+
+        static JournalEntry add(long seq, Credentials credentials, int amount, JournalCipher cipher) {
+            JournalEntry entry = new JournalEntry();
+            entry.seq = seq;
+            entry.amount = amount;
+            entry.session = credentials.digest();
+            entry.credentials = cipher.seal(credentials);
+            return entry;
+        }
+
+        /**
+         * The credentials to replay this refund with, or null if they cannot be decrypted
+         */
+        Credentials credentials(JournalCipher cipher) {
+            if (credentials == null) {
+                return new Credentials(cookie, authorization);
+            }
+            return session == null ? null : cipher.open(credentials, session);
+        }
+
+        static JournalEntry ack(long seq) {
+            JournalEntry entry = new JournalEntry();
+            entry.ack = seq;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package me.dhanur.tasks.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * One auth service endpoint guarded by its own circuit breaker and bulkhead
+ */
+class ResilientEndpoint {
+
+    private final CircuitBreaker breaker;
+    private final Bulkhead bulkhead;
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter breakerRejections;
+    private final Counter bulkheadRejections;
+
+    ResilientEndpoint(String name, AuthProperties.Resilience config, MeterRegistry meterRegistry) {
+        this.breaker = new CircuitBreaker(name, config);
+        this.bulkhead = new Bulkhead(config.getMaxConcurrentCalls(), config.getMaxWait());
+        this.successes = meterRegistry.counter("auth.client.calls", "endpoint", name, "outcome", "success");
+        this.failures = meterRegistry.counter("auth.client.calls", "endpoint", name, "outcome", "failure");
+        this.breakerRejections = meterRegistry.counter("auth.client.calls", "endpoint", name, "outcome",
+                "rejected_by_breaker");
+        this.bulkheadRejections = meterRegistry.counter("auth.client.calls", "endpoint", name, "outcome",
+                "rejected_by_bulkhead");
+        meterRegistry.gauge("auth.client.breaker.state", List.of(Tag.of("endpoint", name)), breaker,
+                b -> b.getState().ordinal());
+    }
+
+    /**
+     * Run the call if the breaker and bulkhead allow it, otherwise return the fallback.
+     * Results matching {@code isFailure} and thrown exceptions count against the breaker.
+     */
+    <T> T call(Supplier<T> call, Predicate<T> isFailure, Supplier<T> fallback) {
+        // An open breaker answers at once, without queueing for a bulkhead permit
+        if (!breaker.tryAcquire()) {
+            breakerRejections.increment();
+            return fallback.get();
+        }
+        if (!bulkhead.tryAcquire()) {
+            breaker.release();
+            bulkheadRejections.increment();
+            return fallback.get();
+        }
+        try {
+            return invoke(call, isFailure, fallback);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private <T> T invoke(Supplier<T> call, Predicate<T> isFailure, Supplier<T> fallback) {
+        try {
+            T result = call.get();
+            if (isFailure.test(result)) {
+                breaker.onFailure();
+                failures.increment();
+                return fallback.get();
+            }
+            breaker.onSuccess();
+            successes.increment();
+            return result;
+        } catch (RuntimeException ex) {
+            breaker.onFailure();
+            failures.increment();
+            return fallback.get();
+        }
+    }
+
+    String getName() {
+        return breaker.getName();
+    }
+
+    CircuitBreaker.State getState() {
+        return breaker.getState();
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("state", breaker.getState());
+        details.put("failureRate", breaker.getFailureRate());
+        details.put("openDuration", breaker.getOpenDuration().toString());
+        details.put("availableConcurrentCalls", bulkhead.getAvailablePermits());
+        details.put("maxConcurrentCalls", bulkhead.getMaxConcurrentCalls());
+        return details;
+    }
+}
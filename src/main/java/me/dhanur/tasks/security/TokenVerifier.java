@@ -0,0 +1,278 @@
+package me.dhanur.tasks.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verifies signed bearer tokens (JWS compact serialization) against public keys loaded from a local
+ * file, so that token-bearing requests can be authenticated without calling /api/status.
+ * <p>
+ * The key file is either a JWKS document or one or more PEM encoded public keys. It is re-read
+ * whenever its modification time changes, checked at most once per reload interval.
+ */
+@Component
+@Slf4j
+public class TokenVerifier {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+    private static final Pattern PEM_BLOCK = Pattern.compile(
+            "-----BEGIN PUBLIC KEY-----([A-Za-z0-9+/=\\s]+)-----END PUBLIC KEY-----");
+    private static final Map<String, String> JCA_ALGORITHMS = Map.of(
+            "RS256", "SHA256withRSA",
+            "RS384", "SHA384withRSA",
+            "RS512", "SHA512withRSA",
+            "ES256", "SHA256withECDSAinP1363Format",
+            "ES384", "SHA384withECDSAinP1363Format",
+            "ES512", "SHA512withECDSAinP1363Format");
+
+    private final AuthProperties.Token properties;
+    private volatile KeySet keySet = KeySet.EMPTY;
+    private volatile long nextReloadCheck;
+
+    public TokenVerifier(AuthProperties authProperties) {
+        this.properties = authProperties.getToken();
+        this.nextReloadCheck = System.nanoTime();
+        if (isEnabled()) {
+            reloadIfChanged();
+        }
+    }
+
+    boolean isEnabled() {
+        return properties.getMode() == AuthProperties.TokenMode.LOCAL;
+    }
+
+    /**
+     * Verify the caller's bearer token locally.
+     *
+     * @return the authenticated status for a valid token, a guest for a token that is signed by a known
+     *         key but invalid or expired, or null when the token cannot be judged locally (no bearer token,
+     *         an opaque token, an algorithm that is not verified here, or an unknown key id) and the auth
+     *         service should be asked instead
+     */
+    AuthStatus verify(Credentials credentials) {
+        String token = credentials.bearerToken();
+        if (token == null) {
+            return null;
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+
+        reloadIfChanged();
+        try {
+            JsonNode header = OBJECT_MAPPER.readTree(BASE64URL.decode(parts[0]));
+            String alg = header.path("alg").asText();
+            String jcaAlgorithm = JCA_ALGORITHMS.get(alg);
+            if (jcaAlgorithm == null) {
+                return null;
+            }
+
+            List<PublicKey> candidates = keySet.candidates(header.path("kid").asText(null), alg);
+            if (candidates.isEmpty()) {
+                return null;
+            }
+
+            byte[] signingInput = (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = BASE64URL.decode(parts[2]);
+            if (!anyVerifies(candidates, jcaAlgorithm, signingInput, signature)) {
+                return AuthStatus.guest();
+            }
+
+            JsonNode claims = OBJECT_MAPPER.readTree(BASE64URL.decode(parts[1]));
+            if (!claimsValid(claims)) {
+                return AuthStatus.guest();
+            }
+
+            AuthStatus status = new AuthStatus();
+            status.authenticated = true;
+            status.role = claims.path(properties.getRoleClaim()).asText("user");
+            return status;
+        } catch (IllegalArgumentException | IOException ex) {
+            return null;
+        }
+    }
+
+    private boolean anyVerifies(List<PublicKey> keys, String jcaAlgorithm, byte[] input, byte[] signature) {
+        for (PublicKey key : keys) {
+            try {
+                Signature verifier = Signature.getInstance(jcaAlgorithm);
+                verifier.initVerify(key);
+                verifier.update(input);
+                if (verifier.verify(signature)) {
+                    return true;
+                }
+            } catch (GeneralSecurityException ignored) {
+            }
+        }
+        return false;
+    }
+
+    private boolean claimsValid(JsonNode claims) {
+        long now = Instant.now().getEpochSecond();
+        long skew = properties.getClockSkew().toSeconds();
+
+        if (!claims.hasNonNull("exp") || claims.get("exp").asLong() + skew < now) {
+            return false;
+        }
+        if (claims.hasNonNull("nbf") && claims.get("nbf").asLong() - skew > now) {
+            return false;
+        }
+        if (StringUtils.hasText(properties.getIssuer())
+                && !properties.getIssuer().equals(claims.path("iss").asText(null))) {
+            return false;
+        }
+        if (StringUtils.hasText(properties.getAudience())) {
+            JsonNode aud = claims.path("aud");
+            boolean matches = aud.isArray()
+                    ? containsText(aud, properties.getAudience())
+                    : properties.getAudience().equals(aud.asText(null));
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsText(JsonNode array, String value) {
+        for (JsonNode element : array) {
+            if (value.equals(element.asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reloadIfChanged() {
+        long now = System.nanoTime();
+        if (now - nextReloadCheck < 0 || !StringUtils.hasText(properties.getKeysFile())) {
+            return;
+        }
+        nextReloadCheck = now + properties.getReloadInterval().toNanos();
+
+        Path path = Path.of(properties.getKeysFile());
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            if (modified.equals(keySet.modified)) {
+                return;
+            }
+            KeySet loaded = parse(Files.readString(path, StandardCharsets.UTF_8), modified);
+            keySet = loaded;
+            log.info("Loaded {} token verification keys from {}", loaded.keys.size(), path);
+        } catch (IOException | GeneralSecurityException | RuntimeException ex) {
+            log.error("Could not load token verification keys from {}, keeping previous keys: {}",
+                    path, ex.getMessage());
+        }
+    }
+
+    private static KeySet parse(String contents, FileTime modified) throws IOException, GeneralSecurityException {
+        List<NamedKey> keys = new ArrayList<>();
+        if (contents.stripLeading().startsWith("{")) {
+            for (JsonNode jwk : OBJECT_MAPPER.readTree(contents).path("keys")) {
+                PublicKey key = switch (jwk.path("kty").asText()) {
+                    case "RSA" -> rsaKey(jwk);
+                    case "EC" -> ecKey(jwk);
+                    default -> null;
+                };
+                if (key != null) {
+                    keys.add(new NamedKey(jwk.path("kid").asText(null), jwk.path("alg").asText(null), key));
+                }
+            }
+        } else {
+            Matcher matcher = PEM_BLOCK.matcher(contents);
+            while (matcher.find()) {
+                byte[] der = Base64.getMimeDecoder().decode(matcher.group(1));
+                keys.add(new NamedKey(null, null, pemKey(der)));
+            }
+        }
+        return new KeySet(List.copyOf(keys), modified);
+    }
+
+    private static PublicKey rsaKey(JsonNode jwk) throws GeneralSecurityException {
+        BigInteger modulus = new BigInteger(1, BASE64URL.decode(jwk.path("n").asText()));
+        BigInteger exponent = new BigInteger(1, BASE64URL.decode(jwk.path("e").asText()));
+        return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+    }
+
+    private static PublicKey ecKey(JsonNode jwk) throws GeneralSecurityException {
+        String curve = switch (jwk.path("crv").asText()) {
+            case "P-256" -> "secp256r1";
+            case "P-384" -> "secp384r1";
+            case "P-521" -> "secp521r1";
+            default -> throw new GeneralSecurityException("Unsupported curve " + jwk.path("crv").asText());
+        };
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec(curve));
+        ECPoint point = new ECPoint(
+                new BigInteger(1, BASE64URL.decode(jwk.path("x").asText())),
+                new BigInteger(1, BASE64URL.decode(jwk.path("y").asText())));
+        return KeyFactory.getInstance("EC").generatePublic(
+                new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+    }
+
+    private static PublicKey pemKey(byte[] der) throws GeneralSecurityException {
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(der));
+        } catch (GeneralSecurityException notRsa) {
+            return KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(der));
+        }
+    }
+
+    private record NamedKey(String kid, String alg, PublicKey key) {
+
+        boolean supports(String tokenAlg) {
+            if (alg != null) {
+                return alg.equals(tokenAlg);
+            }
+            return tokenAlg.startsWith("RS") ? key instanceof RSAPublicKey : key instanceof ECPublicKey;
+        }
+    }
+
+    private record KeySet(List<NamedKey> keys, FileTime modified) {
+
+        static final KeySet EMPTY = new KeySet(List.of(), null);
+
+        /**
+         * Keys that may have signed a token with the given key id and algorithm. Tokens without a
+         * key id, and keys without one (PEM), are matched against every compatible key.
+         */
+        List<PublicKey> candidates(String kid, String alg) {
+            return keys.stream()
+                    .filter(k -> kid == null || k.kid() == null || kid.equals(k.kid()))
+                    .filter(k -> k.supports(alg))
+                    .map(NamedKey::key)
+                    .toList();
+        }
+    }
+}
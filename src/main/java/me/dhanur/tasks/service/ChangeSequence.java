@@ -0,0 +1,69 @@
+package me.dhanur.tasks.service;
+
+import me.dhanur.tasks.repository.TaskRepository;
+import me.dhanur.tasks.repository.TaskTombstoneRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.TreeSet;
+
+/**
+ * Monotonic sequence stamped on every task change and tombstone, for delta sync.
+ * <p>
+ * Numbers are handed out before their transactions commit, and transactions do not commit in number
+ * order, so readers must not trust everything up to the highest number issued. The safe watermark is
+ * the highest number below which every issued number belongs to a finished transaction.
+ * <p>
+ * The safe watermark stands still for as long as the oldest open transaction holds a number, so it cannot
+ * tell whether anything else committed in the meantime. The commit count can: it moves on every commit.
+ */
+@Component
+public class ChangeSequence {
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private long last;
+    private long commits;
+
+    ChangeSequence(TaskRepository taskRepository, TaskTombstoneRepository tombstoneRepository) {
+        this.last = Math.max(taskRepository.findMaxChangeSeq(), tombstoneRepository.findMaxChangeSeq());
+    }
+
+    /**
+     * Issue the next number. It counts as in flight until the current transaction completes.
+     */
+    synchronized long next() {
+        long seq = ++last;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlight.add(seq);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(seq, status == STATUS_COMMITTED);
+                }
+            });
+        }
+        return seq;
+    }
+
+    /**
+     * Highest number up to which every change is committed (or rolled back) and visible to readers
+     */
+    public synchronized long safeWatermark() {
+        return inFlight.isEmpty() ? last : inFlight.first() - 1;
+    }
+
+    /**
+     * Number of changes committed since startup. Anything read after it last moved saw every change it counts.
+     */
+    synchronized long commitCount() {
+        return commits;
+    }
+
+    private synchronized void release(long seq, boolean committed) {
+        inFlight.remove(seq);
+        if (committed) {
+            commits++;
+        }
+    }
+}
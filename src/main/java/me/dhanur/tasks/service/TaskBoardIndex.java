@@ -0,0 +1,325 @@
+package me.dhanur.tasks.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.dhanur.tasks.config.TaskProperties;
+import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.event.TaskEvent;
+import me.dhanur.tasks.repository.TaskRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Every task held in memory, sorted each way the task list can be, so that list pages are read without
+ * a query.
+ * <p>
+ * Optional, for boards small enough to keep in memory. Loaded from the table at startup and kept current
+ * from committed task events; the table stays the source of truth, and lists go to it whenever the board
+ * is disabled or asked for an ordering it does not keep. Writes are serialized but reads take no lock, so
+ * a page read while a task moves may miss it or show it twice, as two database pages read either side of
+ * the move would.
+ */
+@Component
+@Slf4j
+class TaskBoardIndex {
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Object writeLock = new Object();
+    private volatile Board board = new Board();
+    private List<TaskEvent> missedByRebuild;
+
+    TaskBoardIndex(TaskRepository taskRepository, PlatformTransactionManager transactionManager,
+            TaskProperties taskProperties) {
+        this.taskRepository = taskRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = taskProperties.getBoard().isEnabled();
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Re-read every task into a fresh board and swap it in. Lists keep reading the old board meanwhile,
+     * and changes committed during the rebuild are replayed onto the new one.
+     */
+    synchronized void rebuild() {
+        synchronized (writeLock) {
+            missedByRebuild = new ArrayList<>();
+        }
+
+        Board fresh = new Board();
+        boolean complete = false;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<TaskRepository.BoardTask> tasks = taskRepository.streamBoard()) {
+                    tasks.forEach(task -> fresh.put(task.getChangeSeq(), toResponse(task)));
+                }
+            });
+            complete = true;
+        } finally {
+            synchronized (writeLock) {
+                if (complete) {
+                    missedByRebuild.forEach(fresh::apply);
+                    board = fresh;
+                }
+                missedByRebuild = null;
+            }
+        }
+        log.info("Loaded {} tasks onto the in-memory board", fresh.all.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (writeLock) {
+            board.apply(event);
+            if (missedByRebuild != null) {
+                missedByRebuild.add(event);
+            }
+        }
+    }
+
+    /**
+     * A page of tasks with its total, or null if the board cannot answer the request
+     */
+    Page<TaskResponse> findPage(TaskStatus status, Pageable pageable) {
+        NavigableSet<TaskResponse> tasks = sorted(status, pageable);
+        if (tasks == null) {
+            return null;
+        }
+        List<TaskResponse> content = tasks.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(content, pageable, board.listing(status).size());
+    }
+
+    /**
+     * A page of tasks without a total, or null if the board cannot answer the request
+     */
+    Slice<TaskResponse> findSlice(TaskStatus status, Pageable pageable) {
+        NavigableSet<TaskResponse> tasks = sorted(status, pageable);
+        if (tasks == null) {
+            return null;
+        }
+        List<TaskResponse> content = tasks.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1L)
+                .toList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    /**
+     * Up to limit tasks strictly after the cursor in newest-first order, or null if the board is disabled
+     */
+    List<TaskResponse> findAfter(TaskStatus status, TaskCursor after, int limit) {
+        if (!enabled) {
+            return null;
+        }
+        NavigableSet<TaskResponse> newestFirst = board.listing(status).sorted(Ordering.CREATED_AT).descendingSet();
+        if (after != null) {
+            newestFirst = newestFirst.tailSet(
+                    TaskResponse.builder().createdAt(after.createdAt()).id(after.id()).build(), false);
+        }
+        return newestFirst.stream().limit(limit).toList();
+    }
+
+    /**
+     * The board's tasks in the order the pageable asks for, or null if the board is disabled or does not
+     * keep that order
+     */
+    private NavigableSet<TaskResponse> sorted(TaskStatus status, Pageable pageable) {
+        if (!enabled || pageable.isUnpaged()) {
+            return null;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.isEmpty() || !orders.getLast().getProperty().equals("id")) {
+            return null;
+        }
+        Sort.Direction direction = orders.getFirst().getDirection();
+        if (orders.stream().anyMatch(order -> order.getDirection() != direction || order.isIgnoreCase())) {
+            return null;
+        }
+        Ordering ordering = Ordering.of(orders.subList(0, orders.size() - 1).stream()
+                .map(Sort.Order::getProperty)
+                .toList());
+        if (ordering == null) {
+            return null;
+        }
+        // Within one status, ordering by status first changes nothing
+        if (status != null && ordering == Ordering.STATUS) {
+            ordering = Ordering.CREATED_AT;
+        }
+        NavigableSet<TaskResponse> ascending = board.listing(status).sorted(ordering);
+        return direction.isAscending() ? ascending : ascending.descendingSet();
+    }
+
+    private static TaskResponse toResponse(TaskRepository.BoardTask task) {
+        return TaskResponse.builder()
+                .id(task.getId())
+                .title(task.getTitle())
+                .description(task.getDescription())
+                .status(task.getStatus())
+                .createdAt(task.getCreatedAt())
+                .updatedAt(task.getUpdatedAt())
+                .version(task.getVersion())
+                .build();
+    }
+
+    /**
+     * Orderings the board keeps, matching the sorts the task list accepts. Each ends in the id.
+     */
+    private enum Ordering {
+
+        CREATED_AT(List.of("createdAt"), Comparator.comparing(TaskResponse::getCreatedAt)),
+        UPDATED_AT(List.of("updatedAt"), Comparator.comparing(TaskResponse::getUpdatedAt)),
+        TITLE(List.of("title"), Comparator.comparing(TaskResponse::getTitle)),
+        // Statuses are stored by name, so the table orders them alphabetically
+        STATUS(List.of("status", "createdAt"), Comparator
+                .comparing((TaskResponse task) -> task.getStatus().name())
+                .thenComparing(TaskResponse::getCreatedAt));
+
+        private final List<String> properties;
+        private final Comparator<TaskResponse> comparator;
+
+        Ordering(List<String> properties, Comparator<TaskResponse> comparator) {
+            this.properties = properties;
+            this.comparator = comparator.thenComparing(TaskResponse::getId);
+        }
+
+        static Ordering of(List<String> properties) {
+            return Arrays.stream(values())
+                    .filter(ordering -> ordering.properties.equals(properties))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * The position of a task's last change, and the task as it stands, or null once deleted
+     */
+    private record Entry(long changeSeq, TaskResponse task) {
+    }
+
+    private static final class Board {
+
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Listing all = new Listing(Ordering.values());
+        private final Map<TaskStatus, Listing> byStatus = new EnumMap<>(TaskStatus.class);
+
+        Board() {
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, new Listing(Ordering.CREATED_AT, Ordering.UPDATED_AT, Ordering.TITLE));
+            }
+        }
+
+        Listing listing(TaskStatus status) {
+            return status != null ? byStatus.get(status) : all;
+        }
+
+        void apply(TaskEvent event) {
+            if (event.type() == TaskEvent.Type.DELETED) {
+                remove(event.taskId(), event.changeSeq());
+            } else {
+                put(event.changeSeq(), event.task());
+            }
+        }
+
+        void put(long changeSeq, TaskResponse task) {
+            if (!unlist(task.getId(), changeSeq)) {
+                return;
+            }
+            // A copy, since the sets find tasks by the fields they are sorted on
+            TaskResponse listed = task.toBuilder().build();
+            entries.put(listed.getId(), new Entry(changeSeq, listed));
+            all.add(listed);
+            byStatus.get(listed.getStatus()).add(listed);
+        }
+
+        void remove(long id, long changeSeq) {
+            if (unlist(id, changeSeq)) {
+                // Kept as a marker so that an older update arriving late cannot bring the task back
+                entries.put(id, new Entry(changeSeq, null));
+            }
+        }
+
+        /**
+         * Take a task off the board ahead of putting it back. Returns false if the board already holds a
+         * newer change of the task, which must then be left alone.
+         */
+        private boolean unlist(long id, long changeSeq) {
+            Entry existing = entries.get(id);
+            if (existing == null) {
+                return true;
+            }
+            if (existing.changeSeq() > changeSeq) {
+                return false;
+            }
+            if (existing.task() != null) {
+                all.remove(existing.task());
+                byStatus.get(existing.task().getStatus()).remove(existing.task());
+            }
+            entries.remove(id);
+            return true;
+        }
+    }
+
+    /**
+     * One set of tasks, sorted each of the given ways
+     */
+    private static final class Listing {
+
+        private final Map<Ordering, NavigableSet<TaskResponse>> sorted = new EnumMap<>(Ordering.class);
+        private final AtomicInteger size = new AtomicInteger();
+
+        Listing(Ordering... orderings) {
+            for (Ordering ordering : orderings) {
+                sorted.put(ordering, new ConcurrentSkipListSet<>(ordering.comparator));
+            }
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        NavigableSet<TaskResponse> sorted(Ordering ordering) {
+            return sorted.get(ordering);
+        }
+
+        void add(TaskResponse task) {
+            sorted.values().forEach(tasks -> tasks.add(task));
+            size.incrementAndGet();
+        }
+
+        void remove(TaskResponse task) {
+            sorted.values().forEach(tasks -> tasks.remove(task));
+            size.decrementAndGet();
+        }
+    }
+}
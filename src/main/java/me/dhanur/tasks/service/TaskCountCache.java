@@ -0,0 +1,37 @@
+package me.dhanur.tasks.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.dhanur.tasks.config.TaskProperties;
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.repository.TaskRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Task totals per status (and overall) for callers of the count-free listing mode that still want one.
+ * A total is counted once and then refreshed in the background, so it may lag recent writes by up to
+ * the refresh interval.
+ */
+@Component
+class TaskCountCache {
+
+    private final LoadingCache<Optional<TaskStatus>, Long> totals;
+
+    TaskCountCache(TaskRepository taskRepository, TaskProperties taskProperties, MeterRegistry meterRegistry) {
+        this.totals = Caffeine.newBuilder()
+                .refreshAfterWrite(taskProperties.getCount().getRefreshAfter())
+                .recordStats()
+                .build(status -> status
+                        .map(taskRepository::countByStatus)
+                        .orElseGet(taskRepository::count));
+        CaffeineCacheMetrics.monitor(meterRegistry, totals, "tasks.count");
+    }
+
+    long get(TaskStatus status) {
+        return totals.get(Optional.ofNullable(status));
+    }
+}
@@ -0,0 +1,100 @@
+package me.dhanur.tasks.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import me.dhanur.tasks.config.TaskProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical reads share one query. The first caller runs it; callers that arrive while
+ * it is in flight, or within a short window after it finished, are handed the same result.
+ * <p>
+ * A key must name everything the result depends on, including the commit count it was read at, so
+ * that no result is shared across a change that any of its callers could already have seen. The safe
+ * watermark would not do: it stalls behind a slow transaction while other changes commit.
+ */
+@Component
+class TaskReadCoalescer {
+
+    private static final long MAXIMUM_KEYS = 1000;
+
+    private final boolean enabled;
+    private final AsyncCache<Object, Object> reads;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Counter executed;
+    private final Counter coalesced;
+
+    TaskReadCoalescer(PlatformTransactionManager transactionManager, TaskProperties taskProperties,
+            MeterRegistry meterRegistry) {
+        TaskProperties.Coalesce properties = taskProperties.getCoalesce();
+        this.enabled = properties.isEnabled();
+        // In-flight reads never expire; finished ones are reused until the window closes
+        this.reads = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_KEYS)
+                .expireAfterWrite(properties.getWindow())
+                .buildAsync();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executed = Counter.builder("tasks.reads")
+                .tag("outcome", "executed")
+                .description("List reads that ran their own query")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("tasks.reads")
+                .tag("outcome", "coalesced")
+                .description("List reads answered by another caller's query")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the query in a read-only transaction, or wait for an identical one already running
+     */
+    @SuppressWarnings("unchecked")
+    <T> T read(Object key, Supplier<T> query) {
+        if (!enabled) {
+            return run(query);
+        }
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> shared = reads.asMap().putIfAbsent(key, mine);
+        if (shared != null) {
+            coalesced.increment();
+            return (T) await(shared);
+        }
+
+        executed.increment();
+        try {
+            T result = run(query);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            // Failed reads are dropped from the cache, so the next caller tries again
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private <T> T run(Supplier<T> query) {
+        return readOnlyTransaction.execute(status -> query.get());
+    }
+
+    private static Object await(CompletableFuture<Object> shared) {
+        try {
+            return shared.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package me.dhanur.tasks.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.event.TaskEvent;
+import me.dhanur.tasks.repository.TaskRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over task titles and descriptions.
+ * <p>
+ * Built from the table at startup and kept current from committed task events. Every query term must
+ * match a task, either exactly or as the prefix of one of its words, and matches are ranked by how rare
+ * the matched word is, weighted up for titles and down for prefix matches. Each task remembers the
+ * change sequence it was indexed at, so events that arrive out of commit order cannot undo newer ones.
+ */
+@Component
+@Slf4j
+class TaskSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_TERMS = 128;
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private List<TaskEvent> missedByRebuild;
+
+    TaskSearchIndex(TaskRepository taskRepository, PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        rebuild();
+    }
+
+    /**
+     * Re-read every task into a fresh index and swap it in. Searches keep using the old index meanwhile,
+     * and changes committed during the rebuild are replayed onto the new one.
+     */
+    synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            missedByRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index fresh = new Index();
+        boolean complete = false;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<TaskRepository.SearchableTask> tasks = taskRepository.streamSearchable()) {
+                    tasks.forEach(task -> fresh.put(task.getId(), task.getChangeSeq(), task.getStatus(),
+                            task.getTitle(), task.getDescription()));
+                }
+            });
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (complete) {
+                    missedByRebuild.forEach(fresh::apply);
+                    index = fresh;
+                }
+                missedByRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Indexed {} tasks for search", fresh.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        lock.writeLock().lock();
+        try {
+            index.apply(event);
+            if (missedByRebuild != null) {
+                missedByRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the best matching tasks, best first
+     */
+    List<Long> search(String query, TaskStatus status, int limit) {
+        List<String> terms = List.copyOf(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(terms, status, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATORS.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private record Document(long changeSeq, TaskStatus status, String[] titleTerms, String[] descriptionTerms) {
+
+        boolean deleted() {
+            return status == null;
+        }
+    }
+
+    /**
+     * One posting list for one term in one field, with the weight a match contributes
+     */
+    private record Match(Postings postings, double weight) {
+    }
+
+    private static final class Index {
+
+        private final Map<Long, Document> documents = new HashMap<>();
+        private final NavigableMap<String, Postings> title = new TreeMap<>();
+        private final NavigableMap<String, Postings> description = new TreeMap<>();
+        private int live;
+
+        int size() {
+            return live;
+        }
+
+        void apply(TaskEvent event) {
+            if (event.type() == TaskEvent.Type.DELETED) {
+                remove(event.taskId(), event.changeSeq());
+            } else {
+                put(event.taskId(), event.changeSeq(), event.task().getStatus(), event.task().getTitle(),
+                        event.task().getDescription());
+            }
+        }
+
+        void put(long id, long changeSeq, TaskStatus status, String titleText, String descriptionText) {
+            if (!unindex(id, changeSeq)) {
+                return;
+            }
+            String[] titleTerms = distinctTerms(titleText);
+            String[] descriptionTerms = distinctTerms(descriptionText);
+            for (String term : titleTerms) {
+                title.computeIfAbsent(term, t -> new Postings()).add(id);
+            }
+            for (String term : descriptionTerms) {
+                description.computeIfAbsent(term, t -> new Postings()).add(id);
+            }
+            documents.put(id, new Document(changeSeq, status, titleTerms, descriptionTerms));
+            live++;
+        }
+
+        void remove(long id, long changeSeq) {
+            if (unindex(id, changeSeq)) {
+                // Kept as a marker so that an older update arriving late cannot bring the task back
+                documents.put(id, new Document(changeSeq, null, new String[0], new String[0]));
+            }
+        }
+
+        /**
+         * Drop a task's postings ahead of re-indexing it. Returns false if the index already holds a newer
+         * change of the task, which must then be left alone.
+         */
+        private boolean unindex(long id, long changeSeq) {
+            Document existing = documents.get(id);
+            if (existing == null) {
+                return true;
+            }
+            if (existing.changeSeq() > changeSeq) {
+                return false;
+            }
+            for (String term : existing.titleTerms()) {
+                removePosting(title, term, id);
+            }
+            for (String term : existing.descriptionTerms()) {
+                removePosting(description, term, id);
+            }
+            if (!existing.deleted()) {
+                live--;
+            }
+            documents.remove(id);
+            return true;
+        }
+
+        List<Long> search(List<String> terms, TaskStatus status, int limit) {
+            List<List<Match>> matchesPerTerm = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                List<Match> matches = new ArrayList<>();
+                collect(title, term, TITLE_WEIGHT, matches);
+                collect(description, term, DESCRIPTION_WEIGHT, matches);
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+                matchesPerTerm.add(matches);
+            }
+
+            // Enumerate candidates from the rarest term and only probe the others for those
+            matchesPerTerm.sort(Comparator.comparingLong(Index::postingCount));
+            Map<Long, Double> candidates = new HashMap<>();
+            for (Match match : matchesPerTerm.get(0)) {
+                match.postings().forEach(id -> candidates.merge(id, match.weight(), Math::max));
+            }
+
+            PriorityQueue<Hit> best = new PriorityQueue<>(Hit.ORDER);
+            candidates.forEach((id, firstScore) -> {
+                if (status != null && documents.get(id).status() != status) {
+                    return;
+                }
+                double score = firstScore;
+                for (int i = 1; i < matchesPerTerm.size(); i++) {
+                    double termScore = 0;
+                    for (Match match : matchesPerTerm.get(i)) {
+                        if (match.weight() > termScore && match.postings().contains(id)) {
+                            termScore = match.weight();
+                        }
+                    }
+                    if (termScore == 0) {
+                        return;
+                    }
+                    score += termScore;
+                }
+                best.offer(new Hit(id, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+
+            List<Long> ids = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                ids.add(best.poll().id());
+            }
+            return ids.reversed();
+        }
+
+        /**
+         * Add the field's postings for a term: the exact word, and words it is a prefix of
+         */
+        private void collect(NavigableMap<String, Postings> field, String term, double fieldWeight,
+                List<Match> matches) {
+            Postings exact = field.get(term);
+            if (exact != null) {
+                matches.add(new Match(exact, fieldWeight * idf(exact)));
+            }
+            if (term.length() < MIN_PREFIX_LENGTH) {
+                return;
+            }
+            int expanded = 0;
+            for (Map.Entry<String, Postings> entry
+                    : field.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+                if (++expanded > MAX_PREFIX_TERMS) {
+                    break;
+                }
+                matches.add(new Match(entry.getValue(), fieldWeight * PREFIX_WEIGHT * idf(entry.getValue())));
+            }
+        }
+
+        private double idf(Postings postings) {
+            return Math.log(1 + (double) Math.max(live, 1) / postings.size());
+        }
+
+        private static long postingCount(List<Match> matches) {
+            return matches.stream().mapToLong(match -> match.postings().size()).sum();
+        }
+
+        private static void removePosting(Map<String, Postings> field, String term, long id) {
+            Postings postings = field.get(term);
+            if (postings != null && postings.remove(id) && postings.size() == 0) {
+                field.remove(term);
+            }
+        }
+
+        private static String[] distinctTerms(String text) {
+            return new LinkedHashSet<>(tokenize(text)).toArray(String[]::new);
+        }
+    }
+
+    private record Hit(long id, double score) {
+
+        /**
+         * Worst first, so that the head of a bounded queue is the hit to drop. Ties go to newer tasks.
+         */
+        static final Comparator<Hit> ORDER = Comparator.comparingDouble(Hit::score).thenComparingLong(Hit::id);
+    }
+
+    /**
+     * Sorted set of task ids backed by a primitive array. Ids come from a sequence, so new tasks are
+     * appended at the end.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void forEach(LongConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(ids[i]);
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+    }
+}
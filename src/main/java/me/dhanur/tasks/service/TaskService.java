@@ -1,11 +1,21 @@
 package me.dhanur.tasks.service;
 
+import me.dhanur.tasks.dto.CursorPage;
+import me.dhanur.tasks.dto.TaskBatchRequest;
+import me.dhanur.tasks.dto.TaskBatchResponse;
+import me.dhanur.tasks.dto.TaskChanges;
+import me.dhanur.tasks.dto.TaskFields;
 import me.dhanur.tasks.dto.TaskRequest;
 import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.dto.TaskSlice;
+import me.dhanur.tasks.dto.TaskSummary;
 import me.dhanur.tasks.entity.TaskStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface TaskService {
 
     /**
@@ -19,22 +29,86 @@ public interface TaskService {
     TaskResponse getTaskById(Long id);
 
     /**
-     * Get all tasks with pagination and optional filtering
+     * Get all tasks with pagination and optional filtering. Fields outside the selection may be left null.
+     */
+    Page<TaskResponse> getAllTasks(Pageable pageable, TaskStatus status, TaskFields fields);
+
+    /**
+     * Get a page of tasks without counting the total, optionally with a cached approximate total.
+     * Fields outside the selection may be left null.
+     */
+    TaskSlice getTaskSlice(Pageable pageable, TaskStatus status, TaskFields fields, boolean includeApproximateTotal);
+
+    /**
+     * Get tasks newest first, continuing after the given cursor (null or empty for the first page).
+     * Fields outside the selection may be left null.
+     */
+    CursorPage<TaskResponse> getTasksAfter(String cursor, int size, TaskStatus status, TaskFields fields);
+
+    /**
+     * Pass every matching task, newest first, to the consumer without holding them all in memory.
+     * Fields outside the selection are left null.
      */
-    Page<TaskResponse> getAllTasks(Pageable pageable, TaskStatus status);
+    void streamTasks(TaskStatus status, TaskFields fields, Consumer<TaskResponse> consumer);
+
+    /**
+     * Get only the current version of a task, without loading or mapping it
+     */
+    Long getTaskVersion(Long id);
 
     /**
      * Update task status
      */
     TaskResponse updateTaskStatus(Long id, TaskStatus status);
 
+    /**
+     * Update task status if the task is still at the expected version (null to skip the check)
+     */
+    TaskResponse updateTaskStatus(Long id, TaskStatus status, Long expectedVersion);
+
     /**
      * Update complete task
      */
     TaskResponse updateTask(Long id, TaskRequest request);
 
+    /**
+     * Update complete task if it is still at the expected version (null to skip the check)
+     */
+    TaskResponse updateTask(Long id, TaskRequest request, Long expectedVersion);
+
     /**
      * Delete task by ID
      */
     void deleteTask(Long id);
+
+    /**
+     * Apply a list of operations in one transaction, reporting the outcome of each
+     */
+    TaskBatchResponse applyBatch(TaskBatchRequest request);
+
+    /**
+     * Get tasks changed and deleted since the given change token (null or empty for everything)
+     */
+    TaskChanges getChangesSince(String token);
+
+    /**
+     * Find tasks whose title or description contain every word of the query, best matches first
+     */
+    List<TaskResponse> searchTasks(String query, TaskStatus status, int limit);
+
+    /**
+     * Number of tasks in each status, from counters kept in memory
+     */
+    TaskSummary getSummary();
+
+    /**
+     * Token covering every change committed so far, to pair with a full snapshot of the board
+     */
+    String currentChangeToken();
+
+    /**
+     * Version of the board as a whole, which moves on every commit and differs between runs of the
+     * application, to tag list responses with
+     */
+    String boardVersion();
 }
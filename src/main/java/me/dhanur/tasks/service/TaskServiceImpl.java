@@ -1,25 +1,73 @@
 package me.dhanur.tasks.service;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import me.dhanur.tasks.dto.CursorPage;
+import me.dhanur.tasks.dto.TaskBatchOperation;
+import me.dhanur.tasks.dto.TaskBatchRequest;
+import me.dhanur.tasks.dto.TaskBatchResponse;
+import me.dhanur.tasks.dto.TaskBatchResult;
+import me.dhanur.tasks.dto.TaskChanges;
+import me.dhanur.tasks.dto.TaskFields;
 import me.dhanur.tasks.dto.TaskRequest;
 import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.dto.TaskSlice;
+import me.dhanur.tasks.dto.TaskSummary;
 import me.dhanur.tasks.entity.Task;
 import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.entity.TaskTombstone;
+import me.dhanur.tasks.event.TaskEvent;
+import me.dhanur.tasks.exception.PreconditionFailedException;
 import me.dhanur.tasks.exception.ResourceNotFoundException;
 import me.dhanur.tasks.repository.TaskRepository;
+import me.dhanur.tasks.repository.TaskTombstoneRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class TaskServiceImpl implements TaskService {
 
+    static final int MAX_SEARCH_LIMIT = 100;
+
+    /**
+     * Distinguishes board versions of this run from those of earlier runs, whose commit counts restarted at 0
+     */
+    private static final String BOOT_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
     private final TaskRepository taskRepository;
+    private final TaskTombstoneRepository tombstoneRepository;
+    private final ChangeSequence changeSequence;
+    private final TaskCountCache taskCountCache;
+    private final TaskStatusCounters statusCounters;
+    private final TaskSearchIndex searchIndex;
+    private final TaskBoardIndex boardIndex;
+    private final TaskReadCoalescer readCoalescer;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public TaskResponse createTask(TaskRequest request) {
@@ -29,12 +77,16 @@ public class TaskServiceImpl implements TaskService {
                 .title(request.getTitle())
                 .description(request.getDescription())
                 .status(TaskStatus.TODO)
+                .changeSeq(changeSequence.next())
                 .build();
 
         Task savedTask = taskRepository.save(task);
+        // Sequence ids defer the INSERT to flush; flush now so the timestamps are in the response
+        taskRepository.flush();
+        statusCounters.moved(null, savedTask.getStatus());
         log.info("Task created successfully with id: {}", savedTask.getId());
 
-        return mapToResponse(savedTask);
+        return publishChange(TaskEvent.Type.CREATED, savedTask);
     }
 
     @Override
@@ -42,72 +94,465 @@ public class TaskServiceImpl implements TaskService {
     public TaskResponse getTaskById(Long id) {
         log.debug("Fetching task with id: {}", id);
 
-        Task task = taskRepository.findById(id)
+        // Loaded as an entity rather than a projection so that repeat reads come from the second-level cache
+        return taskRepository.findById(id)
+                .map(this::mapToResponse)
                 .orElseThrow(() -> new ResourceNotFoundException("Task", id));
-
-        return mapToResponse(task);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Page<TaskResponse> getAllTasks(Pageable pageable, TaskStatus status) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<TaskResponse> getAllTasks(Pageable pageable, TaskStatus status, TaskFields fields) {
         log.debug("Fetching tasks with pagination - page: {}, size: {}, status: {}",
                 pageable.getPageNumber(), pageable.getPageSize(), status);
 
-        Page<Task> tasks;
+        Page<TaskResponse> tasks = boardIndex.findPage(status, pageable);
 
-        if (status != null) {
-            tasks = taskRepository.findByStatus(status, pageable);
-        } else {
-            tasks = taskRepository.findAll(pageable);
+        if (tasks == null) {
+            tasks = readCoalescer.read(listRead("page", status, pageable, pageable.getPageSize(), fields), () -> {
+                if (!fields.isAll()) {
+                    return taskRepository.findSparsePage(fields, status, pageable);
+                }
+                return status != null
+                        ? taskRepository.findResponsesByStatus(status, pageable)
+                        : taskRepository.findResponses(pageable);
+            });
         }
 
         log.debug("Found {} tasks", tasks.getTotalElements());
-        return tasks.map(this::mapToResponse);
+        return tasks;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TaskSlice getTaskSlice(Pageable pageable, TaskStatus status, TaskFields fields,
+            boolean includeApproximateTotal) {
+        log.debug("Fetching task slice - page: {}, size: {}, status: {}",
+                pageable.getPageNumber(), pageable.getPageSize(), status);
+
+        Slice<TaskResponse> tasks = boardIndex.findSlice(status, pageable);
+        if (tasks == null) {
+            tasks = readCoalescer.read(listRead("slice", status, pageable, pageable.getPageSize(), fields), () -> {
+                if (!fields.isAll()) {
+                    return taskRepository.findSparseSlice(fields, status, pageable);
+                }
+                return status != null
+                        ? taskRepository.findResponseSliceByStatus(status, pageable)
+                        : taskRepository.findResponseSlice(pageable);
+            });
+        }
+
+        return TaskSlice.builder()
+                .content(tasks.getContent())
+                .number(tasks.getNumber())
+                .size(tasks.getSize())
+                .numberOfElements(tasks.getNumberOfElements())
+                .first(tasks.isFirst())
+                .last(tasks.isLast())
+                .hasNext(tasks.hasNext())
+                .approximateTotal(includeApproximateTotal ? taskCountCache.get(status) : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CursorPage<TaskResponse> getTasksAfter(String cursor, int size, TaskStatus status, TaskFields fields) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        TaskCursor after = TaskCursor.decode(cursor);
+        log.debug("Fetching tasks after cursor {} - size: {}, status: {}", after, size, status);
+
+        // One extra row tells us whether another page follows without counting
+        Limit limit = Limit.of(size + 1);
+        List<TaskResponse> tasks = boardIndex.findAfter(status, after, limit.max());
+
+        if (tasks == null) {
+            tasks = readCoalescer.read(listRead("cursor", status, after, size, fields), () -> {
+                if (!fields.isAll()) {
+                    // The next cursor is built from the last task's position, whether or not it is sent
+                    return taskRepository.findSparseAfter(fields.with("createdAt"), status,
+                            after != null ? after.createdAt() : null, after != null ? after.id() : null, limit);
+                }
+                if (after == null) {
+                    return status != null
+                            ? taskRepository.findFirstResponsesByStatus(status, limit)
+                            : taskRepository.findFirstResponses(limit);
+                }
+                return status != null
+                        ? taskRepository.findResponsesAfterByStatus(status, after.createdAt(), after.id(), limit)
+                        : taskRepository.findResponsesAfter(after.createdAt(), after.id(), limit);
+            });
+        }
+
+        boolean hasNext = tasks.size() > size;
+        if (hasNext) {
+            tasks = tasks.subList(0, size);
+        }
+        TaskResponse last = hasNext ? tasks.get(tasks.size() - 1) : null;
+
+        return CursorPage.<TaskResponse>builder()
+                .content(tasks)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(last != null ? new TaskCursor(last.getCreatedAt(), last.getId()).encode() : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamTasks(TaskStatus status, TaskFields fields, Consumer<TaskResponse> consumer) {
+        log.debug("Streaming tasks with status: {}, fields: {}", status, fields.ordered());
+
+        // Rows are read straight into responses, so nothing accumulates in the persistence context
+        try (Stream<TaskResponse> tasks = !fields.isAll()
+                ? taskRepository.streamSparse(fields, status)
+                : status != null
+                        ? taskRepository.streamResponsesByStatus(status)
+                        : taskRepository.streamResponses()) {
+            tasks.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TaskResponse> searchTasks(String query, TaskStatus status, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        log.debug("Searching tasks for '{}' - status: {}, limit: {}", query, status, limit);
+
+        List<Long> ids = searchIndex.search(query, status, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TaskResponse> tasks = taskRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(TaskResponse::getId, Function.identity()));
+        // Keep the index's ranking; a task deleted since the index was read is simply left out
+        return ids.stream()
+                .map(tasks::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long getTaskVersion(Long id) {
+        return taskRepository.findById(id)
+                .map(Task::getVersion)
+                .orElseThrow(() -> new ResourceNotFoundException("Task", id));
     }
 
     @Override
     public TaskResponse updateTaskStatus(Long id, TaskStatus status) {
+        return updateTaskStatus(id, status, null);
+    }
+
+    @Override
+    public TaskResponse updateTaskStatus(Long id, TaskStatus status, Long expectedVersion) {
         log.info("Updating status of task {} to {}", id, status);
 
-        Task task = taskRepository.findById(id)
+        // The row stays locked, so the counters move away from the status the update replaces
+        TaskStatus previous = taskRepository.lockStatusById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Task", id));
+        long changeSeq = changeSequence.next();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (taskRepository.updateStatus(id, expectedVersion, status, changeSeq, now) == 0) {
+            // Only a rejected update pays for reading the version it was rejected for
+            throw versionMismatch(id, getTaskVersion(id), expectedVersion);
+        }
+        evict(id);
 
-        task.setStatus(status);
-        Task updatedTask = taskRepository.save(task);
-
+        statusCounters.moved(previous, status);
+        Task task = taskRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Task", id));
         log.info("Task {} status updated successfully", id);
-        return mapToResponse(updatedTask);
+
+        return publishChange(TaskEvent.Type.STATUS_CHANGED, task);
     }
 
     @Override
     public TaskResponse updateTask(Long id, TaskRequest request) {
+        return updateTask(id, request, null);
+    }
+
+    @Override
+    public TaskResponse updateTask(Long id, TaskRequest request, Long expectedVersion) {
         log.info("Updating task with id: {}", id);
 
         Task task = taskRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Task", id));
+        checkVersion(task, expectedVersion);
 
         task.setTitle(request.getTitle());
         task.setDescription(request.getDescription());
+        task.setChangeSeq(changeSequence.next());
 
         Task updatedTask = taskRepository.save(task);
+        taskRepository.flush();
         log.info("Task {} updated successfully", id);
 
-        return mapToResponse(updatedTask);
+        return publishChange(TaskEvent.Type.UPDATED, updatedTask);
     }
 
     @Override
     public void deleteTask(Long id) {
         log.info("Deleting task with id: {}", id);
 
-        if (!taskRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Task", id);
-        }
+        TaskStatus status = taskRepository.lockStatusById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Task", id));
+        taskRepository.deleteTaskById(id);
+        evict(id);
 
-        taskRepository.deleteById(id);
+        statusCounters.moved(status, null);
+        recordTombstone(id);
         log.info("Task {} deleted successfully", id);
     }
 
+    @Override
+    public TaskBatchResponse applyBatch(TaskBatchRequest request) {
+        List<TaskBatchOperation> operations = request.getOperations();
+        log.info("Applying batch of {} task operations", operations.size());
+
+        // Load every referenced task up front instead of once per operation
+        List<Long> ids = operations.stream()
+                .map(TaskBatchOperation::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Task> tasks = taskRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+
+        List<TaskBatchResult> results = new ArrayList<>(operations.size());
+        List<Task> touched = new ArrayList<>(operations.size());
+        Set<Long> unreported = new HashSet<>();
+        int reported = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            TaskBatchOperation operation = operations.get(i);
+            if (operation.getId() != null && !unreported.add(operation.getId())) {
+                // The task is about to change again, so report what the earlier operations left it as first
+                reported = report(results, touched, reported);
+                unreported.clear();
+                unreported.add(operation.getId());
+            }
+            TaskBatchResult result = TaskBatchResult.builder().index(i).type(operation.getType()).build();
+            touched.add(applyOperation(operation, tasks, result));
+            results.add(result);
+        }
+        report(results, touched, reported);
+
+        int succeeded = (int) results.stream().filter(result -> result.getError() == null).count();
+        log.info("Batch applied: {} succeeded, {} failed", succeeded, results.size() - succeeded);
+        return TaskBatchResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Flush the batch so far and map every successful result from index {@code from} on.
+     * Inserts, updates and deletes go out as JDBC batches; mapping afterwards picks up timestamps and versions.
+     * Returns the index of the first result not yet reported.
+     */
+    private int report(List<TaskBatchResult> results, List<Task> touched, int from) {
+        taskRepository.flush();
+        for (int i = from; i < results.size(); i++) {
+            TaskBatchResult result = results.get(i);
+            if (result.getError() == null && touched.get(i) != null) {
+                result.setTask(publishChange(eventType(result.getType()), touched.get(i)));
+            }
+        }
+        return results.size();
+    }
+
+    /**
+     * Apply one batch operation, recording its status on the result.
+     * Returns the task to report back, or null for deletes and rejected operations.
+     */
+    private Task applyOperation(TaskBatchOperation operation, Map<Long, Task> tasks, TaskBatchResult result) {
+        if (operation.getType() == TaskBatchOperation.Type.CREATE) {
+            if (operation.getTask() == null) {
+                return reject(result, HttpStatus.BAD_REQUEST, "task is required for CREATE");
+            }
+            Task task = taskRepository.save(Task.builder()
+                    .title(operation.getTask().getTitle())
+                    .description(operation.getTask().getDescription())
+                    .status(TaskStatus.TODO)
+                    .changeSeq(changeSequence.next())
+                    .build());
+            statusCounters.moved(null, task.getStatus());
+            result.setStatus(HttpStatus.CREATED.value());
+            return task;
+        }
+
+        if (operation.getId() == null) {
+            return reject(result, HttpStatus.BAD_REQUEST, "id is required for " + operation.getType());
+        }
+        Task task = tasks.get(operation.getId());
+        if (task == null) {
+            return reject(result, HttpStatus.NOT_FOUND,
+                    new ResourceNotFoundException("Task", operation.getId()).getMessage());
+        }
+
+        switch (operation.getType()) {
+            case UPDATE -> {
+                if (operation.getTask() == null) {
+                    return reject(result, HttpStatus.BAD_REQUEST, "task is required for UPDATE");
+                }
+                task.setTitle(operation.getTask().getTitle());
+                task.setDescription(operation.getTask().getDescription());
+            }
+            case UPDATE_STATUS -> {
+                if (operation.getStatus() == null) {
+                    return reject(result, HttpStatus.BAD_REQUEST, "status is required for UPDATE_STATUS");
+                }
+                statusCounters.moved(task.getStatus(), operation.getStatus());
+                task.setStatus(operation.getStatus());
+            }
+            case DELETE -> {
+                taskRepository.delete(task);
+                statusCounters.moved(task.getStatus(), null);
+                tasks.remove(task.getId());
+                recordTombstone(task.getId());
+                result.setStatus(HttpStatus.NO_CONTENT.value());
+                return null;
+            }
+            default -> throw new IllegalStateException("Unhandled operation " + operation.getType());
+        }
+        task.setChangeSeq(changeSequence.next());
+        result.setStatus(HttpStatus.OK.value());
+        return task;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TaskChanges getChangesSince(String token) {
+        long since = parseChangeToken(token);
+        // Fix the upper bound first so that nothing committing during the reads slips past the next token
+        long upTo = changeSequence.safeWatermark();
+        log.debug("Fetching task changes in ({}, {}]", since, upTo);
+
+        List<TaskResponse> changed = taskRepository.findResponsesChangedBetween(since, upTo);
+        List<Long> deleted = tombstoneRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqual(since, upTo)
+                .stream()
+                .map(TaskTombstone::getTaskId)
+                .toList();
+
+        return TaskChanges.builder()
+                .tasks(changed)
+                .deleted(deleted)
+                .token(String.valueOf(Math.max(since, upTo)))
+                .build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TaskSummary getSummary() {
+        Map<TaskStatus, Long> counts = statusCounters.snapshot();
+        return TaskSummary.builder()
+                .counts(counts)
+                .total(counts.values().stream().mapToLong(Long::longValue).sum())
+                .build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String currentChangeToken() {
+        return String.valueOf(changeSequence.safeWatermark());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String boardVersion() {
+        // Not the safe watermark, which stands still behind an open transaction while later changes commit
+        return BOOT_EPOCH + "." + changeSequence.commitCount();
+    }
+
+    /**
+     * Key under which identical list reads between the same two commits share one query
+     */
+    private ListRead listRead(String mode, TaskStatus status, Object position, int size, TaskFields fields) {
+        return new ListRead(mode, status, position, size, fields, changeSequence.commitCount());
+    }
+
+    private record ListRead(String mode, TaskStatus status, Object position, int size, TaskFields fields,
+            long commitCount) {
+    }
+
+    private static void checkVersion(Task task, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(task.getVersion())) {
+            throw versionMismatch(task.getId(), task.getVersion(), expectedVersion);
+        }
+    }
+
+    private static PreconditionFailedException versionMismatch(Long id, Long version, Long expectedVersion) {
+        return new PreconditionFailedException(String.format(
+                "Task with id %d is at version %d, not %d", id, version, expectedVersion));
+    }
+
+    /**
+     * The change number a token reads after. Without a token everything is read, including rows
+     * written before change numbers existed, which all carry 0.
+     */
+    private static long parseChangeToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return -1;
+        }
+        try {
+            long since = Long.parseLong(token);
+            if (since < 0) {
+                throw new NumberFormatException();
+            }
+            return since;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid change token: " + token);
+        }
+    }
+
+    /**
+     * Drop a task changed by a bulk statement from the second-level cache
+     */
+    private void evict(Long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Task.class, id);
+    }
+
+    private void recordTombstone(Long taskId) {
+        long changeSeq = changeSequence.next();
+        // persist rather than save: the id is assigned, so save would look for an existing row first
+        entityManager.persist(TaskTombstone.builder()
+                .taskId(taskId)
+                .changeSeq(changeSeq)
+                .deletedAt(LocalDateTime.now())
+                .build());
+        eventPublisher.publishEvent(TaskEvent.deleted(taskId, changeSeq));
+    }
+
+    /**
+     * Map the task for the response and announce the change; subscribers only receive it once the
+     * transaction commits
+     */
+    private TaskResponse publishChange(TaskEvent.Type type, Task task) {
+        TaskResponse response = mapToResponse(task);
+        eventPublisher.publishEvent(TaskEvent.of(type, response, task.getChangeSeq()));
+        return response;
+    }
+
+    private static TaskEvent.Type eventType(TaskBatchOperation.Type operation) {
+        return switch (operation) {
+            case CREATE -> TaskEvent.Type.CREATED;
+            case UPDATE -> TaskEvent.Type.UPDATED;
+            case UPDATE_STATUS -> TaskEvent.Type.STATUS_CHANGED;
+            case DELETE -> TaskEvent.Type.DELETED;
+        };
+    }
+
+    private static Task reject(TaskBatchResult result, HttpStatus status, String error) {
+        result.setStatus(status.value());
+        result.setError(error);
+        return null;
+    }
+
     /**
      * Map Task entity to TaskResponse DTO
      */
@@ -119,6 +564,7 @@ public class TaskServiceImpl implements TaskService {
                 .status(task.getStatus())
                 .createdAt(task.getCreatedAt())
                 .updatedAt(task.getUpdatedAt())
+                .version(task.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,75 @@
+package me.dhanur.tasks.service;
+
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.repository.TaskRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of tasks in each status, counted once at startup and then kept current by the service as
+ * tasks are created, moved and deleted. A change is applied only when its transaction commits, so the
+ * counters never include work that is rolled back.
+ */
+@Component
+class TaskStatusCounters {
+
+    private final TaskRepository taskRepository;
+    private final Map<TaskStatus, AtomicLong> counts = new EnumMap<>(TaskStatus.class);
+
+    TaskStatusCounters(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+        for (TaskStatus status : TaskStatus.values()) {
+            counts.put(status, new AtomicLong());
+        }
+        rebuild();
+    }
+
+    /**
+     * Recount every status from the database
+     */
+    void rebuild() {
+        Map<TaskStatus, Long> stored = new EnumMap<>(TaskStatus.class);
+        taskRepository.countGroupedByStatus().forEach(count -> stored.put(count.getStatus(), count.getCount()));
+        counts.forEach((status, counter) -> counter.set(stored.getOrDefault(status, 0L)));
+    }
+
+    /**
+     * Record a task moving from one status to another once the current transaction commits.
+     * Pass a null from for a created task and a null to for a deleted one.
+     */
+    void moved(TaskStatus from, TaskStatus to) {
+        if (from == to) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(from, to);
+                }
+            });
+        } else {
+            apply(from, to);
+        }
+    }
+
+    Map<TaskStatus, Long> snapshot() {
+        Map<TaskStatus, Long> snapshot = new EnumMap<>(TaskStatus.class);
+        counts.forEach((status, counter) -> snapshot.put(status, counter.get()));
+        return snapshot;
+    }
+
+    private void apply(TaskStatus from, TaskStatus to) {
+        if (from != null) {
+            counts.get(from).decrementAndGet();
+        }
+        if (to != null) {
+            counts.get(to).incrementAndGet();
+        }
+    }
+}
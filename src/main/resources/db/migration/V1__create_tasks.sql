@@ -0,0 +1,31 @@
+-- Schema as Hibernate generated it before migrations were introduced. Every statement is guarded so that
+-- databases it created, at any earlier version of the entities, are brought to the same state.
+
+CREATE SEQUENCE IF NOT EXISTS tasks_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS tasks (
+    id          BIGINT       NOT NULL,
+    title       VARCHAR(100) NOT NULL,
+    description VARCHAR(500),
+    status      VARCHAR(20)  NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    version     BIGINT       DEFAULT 0 NOT NULL,
+    change_seq  BIGINT       DEFAULT 0 NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS change_seq BIGINT DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS task_tombstones (
+    task_id    BIGINT       NOT NULL,
+    change_seq BIGINT       NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (task_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tasks_created_at_id ON tasks (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_status_created_at_id ON tasks (status, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_change_seq ON tasks (change_seq);
+CREATE INDEX IF NOT EXISTS idx_task_tombstones_change_seq ON task_tombstones (change_seq);
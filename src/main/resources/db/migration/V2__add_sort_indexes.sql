@@ -0,0 +1,7 @@
+-- One index per sortable field, each ending in id to match the tiebreaker the API appends to every sort,
+-- so that any whitelisted sort, with or without a status filter, is read in index order.
+
+CREATE INDEX idx_tasks_updated_at_id ON tasks (updated_at, id);
+CREATE INDEX idx_tasks_status_updated_at_id ON tasks (status, updated_at, id);
+CREATE INDEX idx_tasks_title_id ON tasks (title, id);
+CREATE INDEX idx_tasks_status_title_id ON tasks (status, title, id);
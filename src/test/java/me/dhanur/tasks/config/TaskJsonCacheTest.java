@@ -0,0 +1,87 @@
+package me.dhanur.tasks.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.dhanur.tasks.dto.CursorPage;
+import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.event.TaskEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TaskJsonCache Unit Tests")
+class TaskJsonCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskJsonCache cache;
+    private ObjectMapper plain;
+    private ObjectMapper cached;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TaskJsonCache(new TaskProperties(), meterRegistry);
+        plain = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        cached = new ObjectMapper().findAndRegisterModules().registerModule(cache)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Test
+    @DisplayName("Should write the same JSON as plain serialization, from the cache on repeat")
+    void serialize_ShouldMatchPlainOutputAndReuseBytes() throws Exception {
+        CursorPage<TaskResponse> page = CursorPage.<TaskResponse>builder()
+                .content(List.of(task(1L, "Ünïcode \"quoted\" title", 3L), task(2L, "Second", 0L)))
+                .size(2)
+                .hasNext(false)
+                .build();
+
+        String expected = plain.writeValueAsString(page);
+
+        assertThat(cached.writeValueAsString(page)).isEqualTo(expected);
+        assertThat(new String(cached.writeValueAsBytes(page), "UTF-8")).isEqualTo(expected);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "tasks.json").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should serialize a task again once its version changes or a change commits")
+    void serialize_AfterChange_ShouldNotServeStaleJson() throws Exception {
+        cached.writeValueAsString(task(1L, "Before", 1L));
+
+        assertThat(cached.writeValueAsString(task(1L, "After", 2L))).contains("\"After\"");
+
+        cache.onTaskEvent(TaskEvent.deleted(1L, 9));
+        assertThat(cached.writeValueAsString(task(1L, "Recreated", 2L))).contains("\"Recreated\"");
+    }
+
+    @Test
+    @DisplayName("Should leave pretty-printed output to the usual serializer")
+    void serialize_WhenIndenting_ShouldNotUseCache() throws Exception {
+        TaskResponse task = task(1L, "Pretty", 1L);
+        cached.writeValueAsString(task);
+
+        String pretty = cached.writerWithDefaultPrettyPrinter().writeValueAsString(task);
+
+        assertThat(pretty).isEqualTo(plain.writerWithDefaultPrettyPrinter().writeValueAsString(task));
+    }
+
+    private static TaskResponse task(Long id, String title, Long version) {
+        LocalDateTime at = LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123456000);
+        return TaskResponse.builder()
+                .id(id)
+                .title(title)
+                .status(TaskStatus.TODO)
+                .createdAt(at)
+                .updatedAt(at)
+                .version(version)
+                .build();
+    }
+}
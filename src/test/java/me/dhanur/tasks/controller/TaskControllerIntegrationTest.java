@@ -1,10 +1,21 @@
 package me.dhanur.tasks.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import me.dhanur.tasks.config.WireFormatConfig;
+import me.dhanur.tasks.dto.TaskBatchOperation;
+import me.dhanur.tasks.dto.TaskBatchRequest;
 import me.dhanur.tasks.dto.TaskRequest;
+import me.dhanur.tasks.dto.TaskSummary;
 import me.dhanur.tasks.entity.Task;
 import me.dhanur.tasks.entity.TaskStatus;
 import me.dhanur.tasks.repository.TaskRepository;
+import me.dhanur.tasks.service.TaskService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,9 +24,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,6 +55,18 @@ class TaskControllerIntegrationTest {
         @Autowired
         private TaskRepository taskRepository;
 
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Autowired
+        private TaskService taskService;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
         private Task testTask;
 
         @BeforeEach
@@ -41,19 +74,14 @@ class TaskControllerIntegrationTest {
                 mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
                 objectMapper = new ObjectMapper();
                 objectMapper.findAndRegisterModules();
-                taskRepository.deleteAll();
+                deleteAllTasks();
 
-                testTask = Task.builder()
-                                .title("Integration Test Task")
-                                .description("Testing the full API")
-                                .status(TaskStatus.TODO)
-                                .build();
-                testTask = taskRepository.save(testTask);
+                testTask = createTask("Integration Test Task", "Testing the full API", TaskStatus.TODO);
         }
 
         @AfterEach
         void tearDown() {
-                taskRepository.deleteAll();
+                deleteAllTasks();
         }
 
         @Test
@@ -121,16 +149,40 @@ class TaskControllerIntegrationTest {
                                 .andExpect(jsonPath("$.size").value(10));
         }
 
+        @Test
+        @DisplayName("Should get a page of tasks without a total when count=false")
+        void getTaskSlice_ShouldOmitTotals() throws Exception {
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("count", "false")
+                                .param("size", "10"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content", hasSize(1)))
+                                .andExpect(jsonPath("$.last").value(true))
+                                .andExpect(jsonPath("$.hasNext").value(false))
+                                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                                .andExpect(jsonPath("$.approximateTotal").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("Should page by cursor when a cursor is given with count=false")
+        void getTasks_WithCursorAndCountFalse_ShouldUseCursor() throws Exception {
+                createTask("Second Task", null, TaskStatus.DONE);
+
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("cursor", "")
+                                .param("count", "false")
+                                .param("size", "1"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].title").value("Second Task"))
+                                .andExpect(jsonPath("$.nextCursor").isString())
+                                .andExpect(jsonPath("$.last").doesNotExist());
+        }
+
         @Test
         @DisplayName("Should get all tasks filtered by status")
         void getAllTasks_FilteredByStatus_ShouldReturnFilteredTasks() throws Exception {
                 // Create another task with different status
-                Task inProgressTask = Task.builder()
-                                .title("In Progress Task")
-                                .description("Task in progress")
-                                .status(TaskStatus.IN_PROGRESS)
-                                .build();
-                taskRepository.save(inProgressTask);
+                createTask("In Progress Task", "Task in progress", TaskStatus.IN_PROGRESS);
 
                 mockMvc.perform(get("/api/v1/tasks")
                                 .param("status", "TODO"))
@@ -140,6 +192,294 @@ class TaskControllerIntegrationTest {
                                 .andExpect(jsonPath("$.content[0].status").value("TODO"));
         }
 
+        @Test
+        @DisplayName("Should sort by a whitelisted field and reject any other")
+        void getAllTasks_WithSort_ShouldOnlyAcceptWhitelistedFields() throws Exception {
+                createTask("A first task", null, TaskStatus.TODO);
+
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("sort", "title,asc"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].title").value("A first task"))
+                                .andExpect(jsonPath("$.content[1].title").value("Integration Test Task"));
+
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("sort", "description,asc"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.message").value(containsString("Cannot sort by 'description'")));
+        }
+
+        @Test
+        @DisplayName("Should return only the selected fields of each task")
+        void getAllTasks_WithFields_ShouldReturnOnlySelectedFields() throws Exception {
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("fields", "id,title,status"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].id").value(testTask.getId()))
+                                .andExpect(jsonPath("$.content[0].title").value("Integration Test Task"))
+                                .andExpect(jsonPath("$.content[0].status").value("TODO"))
+                                .andExpect(jsonPath("$.content[0].description").doesNotExist())
+                                .andExpect(jsonPath("$.content[0].createdAt").doesNotExist())
+                                .andExpect(jsonPath("$.totalElements").value(1));
+
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId())
+                                .param("fields", "title"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.title").value("Integration Test Task"))
+                                .andExpect(jsonPath("$.id").doesNotExist())
+                                .andExpect(jsonPath("$.version").doesNotExist());
+
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("fields", "id,priority"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.message").value(containsString("Unknown task field 'priority'")));
+
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId())
+                                .param("fields", "title,priority"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.message").value(containsString("Unknown task field 'priority'")));
+        }
+
+        @Test
+        @DisplayName("Should page by cursor with only the selected fields")
+        void getTasksByCursor_WithFields_ShouldStillContinue() throws Exception {
+                createTask("Second Task", null, TaskStatus.DONE);
+
+                String first = mockMvc.perform(get("/api/v1/tasks")
+                                .param("cursor", "")
+                                .param("size", "1")
+                                .param("fields", "title"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].title").value("Second Task"))
+                                .andExpect(jsonPath("$.content[0].createdAt").doesNotExist())
+                                .andExpect(jsonPath("$.hasNext").value(true))
+                                .andReturn().getResponse().getContentAsString();
+
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("cursor", objectMapper.readTree(first).get("nextCursor").asText())
+                                .param("size", "1")
+                                .param("fields", "title"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].title").value("Integration Test Task"))
+                                .andExpect(jsonPath("$.hasNext").value(false));
+        }
+
+        @Test
+        @DisplayName("Should keep the status summary current through creates, moves and deletes")
+        void getSummary_ShouldFollowWrites() throws Exception {
+                TaskSummary before = summary();
+                // Fixtures go through the service, so the counters match the table from the start
+                assertThat(before.getTotal()).isEqualTo(taskRepository.count());
+                TaskRequest request = TaskRequest.builder().title("Counted task").build();
+
+                String created = mockMvc.perform(post("/api/v1/tasks")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isCreated())
+                                .andReturn().getResponse().getContentAsString();
+                long id = objectMapper.readTree(created).get("id").asLong();
+                mockMvc.perform(patch("/api/v1/tasks/{id}/status", id).param("status", "DONE"))
+                                .andExpect(status().isOk());
+
+                TaskSummary moved = summary();
+                assertThat(moved.getCounts().get(TaskStatus.TODO)).isEqualTo(before.getCounts().get(TaskStatus.TODO));
+                assertThat(moved.getCounts().get(TaskStatus.DONE)).isEqualTo(before.getCounts().get(TaskStatus.DONE) + 1);
+                assertThat(moved.getTotal()).isEqualTo(before.getTotal() + 1);
+
+                mockMvc.perform(delete("/api/v1/tasks/{id}", id))
+                                .andExpect(status().isNoContent());
+                assertThat(summary()).isEqualTo(before);
+        }
+
+        @Test
+        @DisplayName("Should find created tasks by word and word prefix, and forget deleted ones")
+        void searchTasks_ShouldFollowWrites() throws Exception {
+                TaskRequest request = TaskRequest.builder()
+                                .title("Renew passport")
+                                .description("Book an appointment at the consulate")
+                                .build();
+                String created = mockMvc.perform(post("/api/v1/tasks")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isCreated())
+                                .andReturn().getResponse().getContentAsString();
+                long id = objectMapper.readTree(created).get("id").asLong();
+
+                mockMvc.perform(get("/api/v1/tasks/search").param("q", "passport consul"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$[0].id").value(id));
+                mockMvc.perform(get("/api/v1/tasks/search").param("q", "passport").param("status", "DONE"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(0)));
+
+                mockMvc.perform(delete("/api/v1/tasks/{id}", id))
+                                .andExpect(status().isNoContent());
+                mockMvc.perform(get("/api/v1/tasks/search").param("q", "passport"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(0)));
+        }
+
+        @Test
+        @DisplayName("Should walk all tasks newest first with cursor pagination")
+        void getTasksByCursor_ShouldReturnEveryTaskOnce() throws Exception {
+                for (int i = 1; i <= 4; i++) {
+                        createTask("Task " + i, null, TaskStatus.TODO);
+                }
+
+                String firstPage = mockMvc.perform(get("/api/v1/tasks")
+                                .param("cursor", "")
+                                .param("size", "3"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content", hasSize(3)))
+                                .andExpect(jsonPath("$.content[0].title").value("Task 4"))
+                                .andExpect(jsonPath("$.hasNext").value(true))
+                                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                                .andReturn().getResponse().getContentAsString();
+
+                String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("cursor", cursor)
+                                .param("size", "3"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content", hasSize(2)))
+                                .andExpect(jsonPath("$.content[0].title").value("Task 1"))
+                                .andExpect(jsonPath("$.content[1].title").value("Integration Test Task"))
+                                .andExpect(jsonPath("$.hasNext").value(false))
+                                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("Should return 400 BAD REQUEST for a malformed cursor")
+        void getTasksByCursor_WithInvalidCursor_ShouldReturn400() throws Exception {
+                mockMvc.perform(get("/api/v1/tasks")
+                                .param("cursor", "not-a-cursor"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should stream all tasks as a JSON array")
+        void streamTasks_ShouldReturnJsonArray() throws Exception {
+                createTask("Second Task", null, TaskStatus.DONE);
+
+                MvcResult result = mockMvc.perform(get("/api/v1/tasks/stream")
+                                .accept(MediaType.APPLICATION_JSON))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                mockMvc.perform(asyncDispatch(result))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(jsonPath("$", hasSize(2)))
+                                .andExpect(jsonPath("$[0].title").value("Second Task"))
+                                .andExpect(jsonPath("$[1].title").value("Integration Test Task"));
+        }
+
+        @Test
+        @DisplayName("Should stream tasks as NDJSON when requested")
+        void streamTasks_WithNdjsonAccept_ShouldReturnOneTaskPerLine() throws Exception {
+                createTask("Second Task", null, TaskStatus.DONE);
+
+                MvcResult result = mockMvc.perform(get("/api/v1/tasks/stream")
+                                .param("status", "TODO")
+                                .accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                String body = mockMvc.perform(asyncDispatch(result))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn().getResponse().getContentAsString();
+
+                String[] lines = body.split("\n");
+                assertThat(lines).hasSize(1);
+                assertThat(objectMapper.readTree(lines[0]).get("title").asText()).isEqualTo("Integration Test Task");
+        }
+
+        @Test
+        @DisplayName("Should stream whole tasks from the JSON cache")
+        void streamTasks_WithoutFields_ShouldHitJsonCache() throws Exception {
+                streamNdjson();
+                double hits = jsonCacheHits();
+
+                streamNdjson();
+
+                assertThat(jsonCacheHits()).isEqualTo(hits + 1);
+        }
+
+        @Test
+        @DisplayName("Should stream only the selected fields")
+        void streamTasks_WithFields_ShouldOmitOtherFields() throws Exception {
+                MvcResult result = mockMvc.perform(get("/api/v1/tasks/stream")
+                                .param("fields", "id,status")
+                                .accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                String body = mockMvc.perform(asyncDispatch(result))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                JsonNode task = objectMapper.readTree(body.trim());
+                assertThat(task.get("id").asLong()).isEqualTo(testTask.getId());
+                assertThat(task.get("status").asText()).isEqualTo("TODO");
+                assertThat(task.has("title")).isFalse();
+                assertThat(task.has("description")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should stream tasks as a Smile array when requested")
+        void streamTasks_WithSmileAccept_ShouldReturnSmileArray() throws Exception {
+                createTask("Second Task", null, TaskStatus.DONE);
+
+                MvcResult result = mockMvc.perform(get("/api/v1/tasks/stream")
+                                .accept(WireFormatConfig.APPLICATION_SMILE))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                byte[] body = mockMvc.perform(asyncDispatch(result))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(WireFormatConfig.APPLICATION_SMILE))
+                                .andReturn().getResponse().getContentAsByteArray();
+
+                JsonNode tasks = new ObjectMapper(new SmileFactory()).readTree(body);
+                assertThat(tasks).hasSize(2);
+                assertThat(tasks.get(0).get("title").asText()).isEqualTo("Second Task");
+                assertThat(tasks.get(1).get("title").asText()).isEqualTo("Integration Test Task");
+        }
+
+        @Test
+        @DisplayName("Should accept and return CBOR carrying the same document as JSON")
+        void createTask_WithCbor_ShouldMatchJsonRepresentation() throws Exception {
+                ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+                TaskRequest request = TaskRequest.builder()
+                                .title("Binary Task")
+                                .description("Sent as CBOR")
+                                .build();
+
+                byte[] created = mockMvc.perform(post("/api/v1/tasks")
+                                .contentType(MediaType.APPLICATION_CBOR)
+                                .accept(MediaType.APPLICATION_CBOR)
+                                .content(cbor.writeValueAsBytes(request)))
+                                .andExpect(status().isCreated())
+                                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                                .andReturn().getResponse().getContentAsByteArray();
+                long id = cbor.readTree(created).get("id").asLong();
+
+                String json = mockMvc.perform(get("/api/v1/tasks/{id}", id).accept(MediaType.APPLICATION_JSON))
+                                .andReturn().getResponse().getContentAsString();
+                byte[] binary = mockMvc.perform(get("/api/v1/tasks/{id}", id).accept(MediaType.APPLICATION_CBOR))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsByteArray();
+                assertThat(cbor.readTree(binary)).isEqualTo(objectMapper.readTree(json));
+
+                byte[] page = mockMvc.perform(get("/api/v1/tasks").accept(MediaType.APPLICATION_CBOR))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsByteArray();
+                assertThat(cbor.readTree(page).get("content")).hasSize(2);
+        }
+
         @Test
         @DisplayName("Should get task by ID and return 200 OK")
         void getTaskById_WhenTaskExists_ShouldReturn200() throws Exception {
@@ -211,6 +551,126 @@ class TaskControllerIntegrationTest {
                                 .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("Should return 304 NOT MODIFIED for a task whose ETag is unchanged")
+        void getTaskById_WithMatchingETag_ShouldReturn304() throws Exception {
+                String etag = mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(status().isOk())
+                                .andExpect(header().exists("ETag"))
+                                .andReturn().getResponse().getHeader("ETag");
+
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId())
+                                .header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(content().string(""));
+
+                mockMvc.perform(patch("/api/v1/tasks/{id}/status", testTask.getId())
+                                .param("status", "DONE"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", not(etag)));
+
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId())
+                                .header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.status").value("DONE"));
+        }
+
+        @Test
+        @DisplayName("Should return 412 PRECONDITION FAILED when If-Match names an older version")
+        void updateTask_WithStaleIfMatch_ShouldReturn412() throws Exception {
+                String etag = mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                                .andReturn().getResponse().getHeader("ETag");
+                TaskRequest updateRequest = TaskRequest.builder()
+                                .title("First writer")
+                                .build();
+
+                mockMvc.perform(put("/api/v1/tasks/{id}", testTask.getId())
+                                .header("If-Match", etag)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(updateRequest)))
+                                .andExpect(status().isOk());
+
+                updateRequest.setTitle("Second writer");
+                mockMvc.perform(put("/api/v1/tasks/{id}", testTask.getId())
+                                .header("If-Match", etag)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(updateRequest)))
+                                .andExpect(status().isPreconditionFailed())
+                                .andExpect(jsonPath("$.status").value(412));
+
+                assertThat(taskRepository.findById(testTask.getId()).orElseThrow().getTitle())
+                                .isEqualTo("First writer");
+        }
+
+        @Test
+        @DisplayName("Should return 304 NOT MODIFIED for the task list until a task changes")
+        void getAllTasks_WithMatchingETag_ShouldReturn304UntilChanged() throws Exception {
+                String etag = mockMvc.perform(get("/api/v1/tasks"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getHeader("ETag");
+
+                mockMvc.perform(get("/api/v1/tasks").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+
+                mockMvc.perform(patch("/api/v1/tasks/{id}/status", testTask.getId())
+                                .param("status", "IN_PROGRESS"))
+                                .andExpect(status().isOk());
+
+                mockMvc.perform(get("/api/v1/tasks").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].status").value("IN_PROGRESS"));
+        }
+
+        @Test
+        @DisplayName("Should move the list ETag on a commit while an older transaction is still open")
+        void getAllTasks_WithOpenOlderTransaction_ShouldStillChangeETag() throws Exception {
+                Task other = createTask("Other Task", null, TaskStatus.TODO);
+                CountDownLatch holding = new CountDownLatch(1);
+                CountDownLatch release = new CountDownLatch(1);
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                Thread slow = Thread.ofVirtual().start(() -> transaction.executeWithoutResult(status -> {
+                        taskService.updateTask(testTask.getId(), TaskRequest.builder().title("Slow Update").build(), null);
+                        holding.countDown();
+                        awaitQuietly(release);
+                }));
+                try {
+                        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+                        String etag = mockMvc.perform(get("/api/v1/tasks"))
+                                        .andReturn().getResponse().getHeader("ETag");
+
+                        mockMvc.perform(patch("/api/v1/tasks/{id}/status", other.getId()).param("status", "DONE"))
+                                        .andExpect(status().isOk());
+
+                        mockMvc.perform(get("/api/v1/tasks").header("If-None-Match", etag))
+                                        .andExpect(status().isOk())
+                                        .andExpect(header().string("ETag", not(etag)));
+                } finally {
+                        release.countDown();
+                        slow.join();
+                }
+        }
+
+        @Test
+        @DisplayName("Should tag each list format separately and vary the list by Accept")
+        void getAllTasks_InDifferentFormats_ShouldCarryDifferentETags() throws Exception {
+                String json = mockMvc.perform(get("/api/v1/tasks"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().stringValues("Vary", hasItem(containsString("Accept"))))
+                                .andReturn().getResponse().getHeader("ETag");
+
+                String cbor = mockMvc.perform(get("/api/v1/tasks").accept(MediaType.APPLICATION_CBOR))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                                .andExpect(header().stringValues("Vary", hasItem(containsString("Accept"))))
+                                .andReturn().getResponse().getHeader("ETag");
+
+                assertThat(cbor).isNotEqualTo(json);
+                mockMvc.perform(get("/api/v1/tasks").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", json))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/v1/tasks").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", cbor))
+                                .andExpect(status().isNotModified());
+        }
+
         @Test
         @DisplayName("Should delete task and return 204 NO CONTENT")
         void deleteTask_WhenTaskExists_ShouldReturn204() throws Exception {
@@ -222,6 +682,61 @@ class TaskControllerIntegrationTest {
                                 .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("Should serve repeat reads from the second-level cache and keep it current on writes")
+        void getTaskById_ShouldUseSecondLevelCacheAndSeeWrites() throws Exception {
+                Cache cache = entityManagerFactory.getCache();
+                cache.evictAll();
+
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(status().isOk());
+                assertThat(cache.contains(Task.class, testTask.getId())).isTrue();
+
+                mockMvc.perform(patch("/api/v1/tasks/{id}/status", testTask.getId()).param("status", "DONE"))
+                                .andExpect(status().isOk());
+                TaskRequest update = TaskRequest.builder().title("Cached Title").build();
+                mockMvc.perform(put("/api/v1/tasks/{id}", testTask.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(update)))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.status").value("DONE"))
+                                .andExpect(jsonPath("$.title").value("Cached Title"))
+                                .andExpect(jsonPath("$.version").value(2));
+
+                mockMvc.perform(delete("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(status().isNoContent());
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should evict the changed task from the second-level cache on status changes and deletes")
+        void updateStatusAndDelete_ShouldEvictTheAffectedTask() throws Exception {
+                Cache cache = entityManagerFactory.getCache();
+                cache.evictAll();
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId())).andExpect(status().isOk());
+                assertThat(cache.contains(Task.class, testTask.getId())).isTrue();
+
+                mockMvc.perform(patch("/api/v1/tasks/{id}/status", testTask.getId()).param("status", "DONE"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.status").value("DONE"))
+                                .andExpect(jsonPath("$.version").value(1));
+
+                assertThat(cache.contains(Task.class, testTask.getId())).isFalse();
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(jsonPath("$.status").value("DONE"))
+                                .andExpect(jsonPath("$.version").value(1));
+
+                mockMvc.perform(delete("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(status().isNoContent());
+
+                assertThat(cache.contains(Task.class, testTask.getId())).isFalse();
+                mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(status().isNotFound());
+        }
+
         @Test
         @DisplayName("Should return 404 NOT FOUND when deleting non-existent task")
         void deleteTask_WhenTaskNotExists_ShouldReturn404() throws Exception {
@@ -229,6 +744,170 @@ class TaskControllerIntegrationTest {
                                 .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("Should return only the tasks changed and deleted since a change token")
+        void getChanges_ShouldReturnDeltaSinceToken() throws Exception {
+                String token = mockMvc.perform(get("/api/v1/tasks/changes"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                token = objectMapper.readTree(token).get("token").asText();
+
+                TaskRequest request = TaskRequest.builder().title("Changed Task").build();
+                String created = mockMvc.perform(post("/api/v1/tasks")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isCreated())
+                                .andReturn().getResponse().getContentAsString();
+                long createdId = objectMapper.readTree(created).get("id").asLong();
+                mockMvc.perform(delete("/api/v1/tasks/{id}", testTask.getId()))
+                                .andExpect(status().isNoContent());
+
+                mockMvc.perform(get("/api/v1/tasks/changes")
+                                .param("since", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.tasks", hasSize(1)))
+                                .andExpect(jsonPath("$.tasks[0].id").value(createdId))
+                                .andExpect(jsonPath("$.deleted", contains(testTask.getId().intValue())))
+                                .andExpect(jsonPath("$.token").value(not(token)));
+        }
+
+        @Test
+        @DisplayName("Should include tasks without a change number when no change token is given")
+        void getChanges_WithoutToken_ShouldIncludeUnnumberedTasks() throws Exception {
+                // Saved straight through the repository, like rows that predate change numbers, and removed the
+                // same way so that the counters and indexes never see it
+                Task legacy = taskRepository.save(Task.builder().title("Legacy Task").status(TaskStatus.TODO).build());
+                try {
+                        assertThat(legacy.getChangeSeq()).isZero();
+
+                        String body = mockMvc.perform(get("/api/v1/tasks/changes"))
+                                        .andExpect(status().isOk())
+                                        .andExpect(jsonPath("$.tasks[*].id", hasItem(legacy.getId().intValue())))
+                                        .andReturn().getResponse().getContentAsString();
+                        String token = objectMapper.readTree(body).get("token").asText();
+
+                        mockMvc.perform(get("/api/v1/tasks/changes")
+                                        .param("since", token))
+                                        .andExpect(status().isOk())
+                                        .andExpect(jsonPath("$.tasks[*].id", not(hasItem(legacy.getId().intValue()))));
+                } finally {
+                        taskRepository.delete(legacy);
+                }
+        }
+
+        @Test
+        @DisplayName("Should return 400 BAD REQUEST for an invalid change token")
+        void getChanges_WithInvalidToken_ShouldReturn400() throws Exception {
+                mockMvc.perform(get("/api/v1/tasks/changes")
+                                .param("since", "abc"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should push an event to subscribers once a change commits")
+        void subscribeToEvents_ShouldReceiveCommittedChanges() throws Exception {
+                MvcResult subscription = mockMvc.perform(get("/api/v1/tasks/events"))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                mockMvc.perform(patch("/api/v1/tasks/{id}/status", testTask.getId())
+                                .param("status", "DONE"))
+                                .andExpect(status().isOk());
+
+                await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertThat(
+                                subscription.getResponse().getContentAsString())
+                                .contains("event:task.status_changed")
+                                .contains("\"taskId\":" + testTask.getId()));
+        }
+
+        @Test
+        @DisplayName("Should apply a mixed batch and report status per operation")
+        void applyBatch_ShouldReportEachOperation() throws Exception {
+                TaskBatchRequest request = TaskBatchRequest.builder()
+                                .operations(List.of(
+                                                TaskBatchOperation.builder()
+                                                                .type(TaskBatchOperation.Type.CREATE)
+                                                                .task(TaskRequest.builder().title("Batch Task").build())
+                                                                .build(),
+                                                TaskBatchOperation.builder()
+                                                                .type(TaskBatchOperation.Type.UPDATE_STATUS)
+                                                                .id(testTask.getId())
+                                                                .status(TaskStatus.DONE)
+                                                                .build(),
+                                                TaskBatchOperation.builder()
+                                                                .type(TaskBatchOperation.Type.DELETE)
+                                                                .id(999L)
+                                                                .build()))
+                                .build();
+
+                mockMvc.perform(post("/api/v1/tasks/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.succeeded").value(2))
+                                .andExpect(jsonPath("$.failed").value(1))
+                                .andExpect(jsonPath("$.results[0].status").value(201))
+                                .andExpect(jsonPath("$.results[0].task.id").exists())
+                                .andExpect(jsonPath("$.results[0].task.createdAt").exists())
+                                .andExpect(jsonPath("$.results[1].status").value(200))
+                                .andExpect(jsonPath("$.results[1].task.status").value("DONE"))
+                                .andExpect(jsonPath("$.results[2].status").value(404))
+                                .andExpect(jsonPath("$.results[2].error").value("Task with id 999 not found"));
+
+                assertThat(taskRepository.count()).isEqualTo(2);
+                assertThat(taskRepository.findById(testTask.getId()).orElseThrow().getStatus())
+                                .isEqualTo(TaskStatus.DONE);
+        }
+
+        @Test
+        @DisplayName("Should report each state of a task changed twice in one batch")
+        void applyBatch_WithRepeatedId_ShouldReportEachState() throws Exception {
+                long version = taskRepository.findById(testTask.getId()).orElseThrow().getVersion();
+                TaskBatchRequest request = TaskBatchRequest.builder()
+                                .operations(List.of(
+                                                TaskBatchOperation.builder()
+                                                                .type(TaskBatchOperation.Type.UPDATE)
+                                                                .id(testTask.getId())
+                                                                .task(TaskRequest.builder().title("Renamed").build())
+                                                                .build(),
+                                                TaskBatchOperation.builder()
+                                                                .type(TaskBatchOperation.Type.UPDATE_STATUS)
+                                                                .id(testTask.getId())
+                                                                .status(TaskStatus.DONE)
+                                                                .build()))
+                                .build();
+
+                mockMvc.perform(post("/api/v1/tasks/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.succeeded").value(2))
+                                .andExpect(jsonPath("$.results[0].task.title").value("Renamed"))
+                                .andExpect(jsonPath("$.results[0].task.status").value("TODO"))
+                                .andExpect(jsonPath("$.results[0].task.version").value(version + 1))
+                                .andExpect(jsonPath("$.results[1].task.title").value("Renamed"))
+                                .andExpect(jsonPath("$.results[1].task.status").value("DONE"))
+                                .andExpect(jsonPath("$.results[1].task.version").value(version + 2));
+        }
+
+        @Test
+        @DisplayName("Should return 400 BAD REQUEST for an invalid task in a batch")
+        void applyBatch_WithInvalidTask_ShouldReturn400() throws Exception {
+                TaskBatchRequest request = TaskBatchRequest.builder()
+                                .operations(List.of(TaskBatchOperation.builder()
+                                                .type(TaskBatchOperation.Type.CREATE)
+                                                .task(TaskRequest.builder().title("").build())
+                                                .build()))
+                                .build();
+
+                mockMvc.perform(post("/api/v1/tasks/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isBadRequest());
+
+                assertThat(taskRepository.count()).isEqualTo(1);
+        }
+
         @Test
         @DisplayName("Should perform complete CRUD lifecycle")
         void completeCrudLifecycle() throws Exception {
@@ -279,4 +958,53 @@ class TaskControllerIntegrationTest {
                 mockMvc.perform(get("/api/v1/tasks/{id}", taskId))
                                 .andExpect(status().isNotFound());
         }
+
+        /**
+         * Create a task through the service, as the API does, so that the status counters, the in-memory
+         * indexes and the change sequence all see it
+         */
+        private Task createTask(String title, String description, TaskStatus status) {
+                Long id = taskService.createTask(TaskRequest.builder().title(title).description(description).build())
+                                .getId();
+                if (status != TaskStatus.TODO) {
+                        taskService.updateTaskStatus(id, status);
+                }
+                return taskRepository.findById(id).orElseThrow();
+        }
+
+        /**
+         * Delete every task through the service, so that nothing in memory still holds one
+         */
+        private void deleteAllTasks() {
+                taskRepository.findAll().forEach(task -> taskService.deleteTask(task.getId()));
+        }
+
+        private void streamNdjson() throws Exception {
+                MvcResult result = mockMvc.perform(get("/api/v1/tasks/stream")
+                                .accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                mockMvc.perform(asyncDispatch(result))
+                                .andExpect(status().isOk());
+        }
+
+        private double jsonCacheHits() {
+                return meterRegistry.get("cache.gets").tag("cache", "tasks.json").tag("result", "hit")
+                                .functionCounter().count();
+        }
+
+        private TaskSummary summary() throws Exception {
+                String body = mockMvc.perform(get("/api/v1/tasks/summary"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                return objectMapper.readValue(body, TaskSummary.class);
+        }
+
+        private static void awaitQuietly(CountDownLatch latch) {
+                try {
+                        latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                }
+        }
 }
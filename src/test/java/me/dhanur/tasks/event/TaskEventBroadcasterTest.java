@@ -0,0 +1,152 @@
+package me.dhanur.tasks.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.dhanur.tasks.config.TaskProperties;
+import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.service.ChangeSequence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("TaskEventBroadcaster Unit Tests")
+class TaskEventBroadcasterTest {
+
+    private TaskProperties properties;
+    private ChangeSequence changeSequence;
+    private TaskEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TaskProperties();
+        properties.getEvents().setBufferSize(2);
+        changeSequence = mock(ChangeSequence.class);
+        when(changeSequence.safeWatermark()).thenReturn(100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should deliver published events to every subscriber")
+    void onTaskEvent_ShouldReachAllSubscribers() {
+        broadcaster = new TaskEventBroadcaster(properties, changeSequence, new SimpleMeterRegistry());
+        RecordingEmitter first = new RecordingEmitter(null);
+        RecordingEmitter second = new RecordingEmitter(null);
+        broadcaster.subscribe(first);
+        broadcaster.subscribe(second);
+
+        broadcaster.onTaskEvent(TaskEvent.of(TaskEvent.Type.CREATED, task(1L), 7));
+        broadcaster.onTaskEvent(TaskEvent.deleted(1L, 8));
+
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> {
+            assertThat(first.sent).hasSize(2);
+            assertThat(second.sent).hasSize(2);
+        });
+    }
+
+    @Test
+    @DisplayName("Should disconnect a subscriber that falls behind without holding back the others")
+    void onTaskEvent_WithSlowSubscriber_ShouldEvictIt() throws Exception {
+        broadcaster = new TaskEventBroadcaster(properties, changeSequence, new SimpleMeterRegistry());
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(stuck);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        broadcaster.subscribe(slow);
+        broadcaster.subscribe(fast);
+
+        for (int seq = 1; seq <= 5; seq++) {
+            broadcaster.onTaskEvent(TaskEvent.of(TaskEvent.Type.UPDATED, task(1L), seq));
+            int delivered = seq;
+            await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertThat(fast.sent).hasSize(delivered));
+        }
+
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+        stuck.countDown();
+    }
+
+    @Test
+    @DisplayName("Should send the safe watermark as the event ID, below any change still queued")
+    void onTaskEvent_ShouldSendCatchUpTokenAsId() throws Exception {
+        CountDownLatch dispatching = new CountDownLatch(1);
+        CountDownLatch queued = new CountDownLatch(1);
+        when(changeSequence.safeWatermark()).thenAnswer(invocation -> {
+            dispatching.countDown();
+            queued.await(2, TimeUnit.SECONDS);
+            return 9L;
+        }).thenReturn(9L);
+        broadcaster = new TaskEventBroadcaster(properties, changeSequence, new SimpleMeterRegistry());
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        broadcaster.subscribe(emitter);
+
+        // The second change commits while the first is being dispatched and is not yet sent
+        broadcaster.onTaskEvent(TaskEvent.of(TaskEvent.Type.UPDATED, task(1L), 8));
+        assertThat(dispatching.await(2, TimeUnit.SECONDS)).isTrue();
+        broadcaster.onTaskEvent(TaskEvent.of(TaskEvent.Type.UPDATED, task(2L), 6));
+        queued.countDown();
+
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertThat(emitter.sent).hasSize(2));
+        assertThat(eventId(emitter.sent.get(0))).isEqualTo("5");
+        assertThat(eventId(emitter.sent.get(1))).isEqualTo("9");
+    }
+
+    @Test
+    @DisplayName("Should refuse subscriptions beyond the configured limit")
+    void subscribe_BeyondLimit_ShouldReturnNull() {
+        properties.getEvents().setMaxSubscribers(1);
+        broadcaster = new TaskEventBroadcaster(properties, changeSequence, new SimpleMeterRegistry());
+
+        assertThat(broadcaster.subscribe()).isNotNull();
+        assertThat(broadcaster.subscribe()).isNull();
+    }
+
+    private static TaskResponse task(Long id) {
+        return TaskResponse.builder().id(id).title("Task " + id).status(TaskStatus.TODO).build();
+    }
+
+    private static String eventId(SseEmitter.SseEventBuilder event) {
+        String head = event.build().iterator().next().getData().toString();
+        return head.substring(head.indexOf("id:") + 3, head.indexOf('\n', head.indexOf("id:")));
+    }
+
+    /**
+     * Emitter that records what is sent to it, optionally blocking on every send like a stalled client
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<SseEventBuilder> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch block;
+
+        RecordingEmitter(CountDownLatch block) {
+            this.block = block;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (block != null) {
+                try {
+                    block.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new IOException(ex);
+                }
+            }
+            sent.add(builder);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package me.dhanur.tasks.security;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AuthFilter Speculative Debit Tests")
+class AuthFilterTest {
+
+    @Mock
+    private RefundQueue refundQueue;
+
+    private HttpServer server;
+    private AuthFilter filter;
+    private final AtomicInteger debitCalls = new AtomicInteger();
+    private final CountDownLatch debitArrived = new CountDownLatch(1);
+    private volatile boolean authenticated = true;
+    private volatile boolean debitSeenDuringStatus;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/status", exchange -> {
+            // Hold the status answer until the debit shows up, which only happens if both are in flight
+            debitSeenDuringStatus = awaitQuietly(debitArrived);
+            respond(exchange, 200, authenticated
+                    ? "{\"authenticated\":true,\"role\":\"user\"}"
+                    : "{\"authenticated\":false}");
+        });
+        server.createContext("/api/credits/use", exchange -> {
+            debitCalls.incrementAndGet();
+            debitArrived.countDown();
+            respond(exchange, 200, "{}");
+        });
+        server.start();
+
+        AuthProperties properties = new AuthProperties();
+        properties.setServiceUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AuthServiceClient client = new AuthServiceClient(properties, registry);
+        filter = new AuthFilter(client, new AuthStatusCache(properties, registry),
+                new CreditLedger(client, refundQueue, properties, registry), new TokenVerifier(properties));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should issue the debit while the status lookup is still pending")
+    void write_ShouldDebitAlongsideStatusLookup() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(write(), response, chain);
+
+        assertThat(debitSeenDuringStatus).isTrue();
+        assertThat(debitCalls.get()).isEqualTo(1);
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should refund the speculative debit when authentication fails")
+    void write_WhenUnauthenticated_ShouldRefundDebit() throws Exception {
+        authenticated = false;
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(write(), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+        verify(refundQueue, timeout(2000)).enqueue(any(), eq(1));
+    }
+
+    @Test
+    @DisplayName("Should keep the debit when authentication succeeds and the write does")
+    void write_WhenAuthenticated_ShouldNotRefund() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(write(), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(debitCalls.get()).isEqualTo(1);
+        verify(refundQueue, after(200).never()).enqueue(any(), anyInt());
+    }
+
+    private static MockHttpServletRequest write() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/tasks");
+        request.addHeader("Cookie", "session=abc");
+        return request;
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package me.dhanur.tasks.security;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AuthServiceClient Resilience Tests")
+class AuthServiceClientTest {
+
+    private HttpServer server;
+    private AuthProperties properties;
+    private final AtomicInteger statusCalls = new AtomicInteger();
+    private volatile int statusCode = 200;
+    private volatile CountDownLatch statusGate;
+    private final Credentials credentials = new Credentials("session=abc", null);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/status", exchange -> {
+            statusCalls.incrementAndGet();
+            CountDownLatch gate = statusGate;
+            if (gate != null) {
+                awaitQuietly(gate);
+            }
+            respond(exchange, statusCode, "{\"authenticated\":true,\"role\":\"user\"}");
+        });
+        server.createContext("/api/credits/use", exchange -> respond(exchange, 503, "{}"));
+        server.start();
+
+        properties = new AuthProperties();
+        properties.setServiceUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        properties.getResilience().setMinimumCalls(4);
+        properties.getResilience().setSlidingWindowSize(4);
+        properties.getResilience().setHalfOpenCalls(1);
+        properties.getResilience().setOpenDuration(Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should open the breaker after repeated failures and stop calling the auth service")
+    void fetchStatus_WhenAuthServiceFails_ShouldOpenBreaker() {
+        statusCode = 500;
+        AuthServiceClient client = new AuthServiceClient(properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(client.fetchStatus(credentials)).isNull();
+        }
+        int callsWhenOpened = statusCalls.get();
+        assertThat(client.fetchStatus(credentials)).isNull();
+
+        assertThat(statusCalls.get()).isEqualTo(callsWhenOpened);
+        assertThat(client.endpoints().get(0).getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    @DisplayName("Should close the breaker again after a successful half-open probe")
+    void fetchStatus_AfterOpenDuration_ShouldProbeAndClose() throws InterruptedException {
+        statusCode = 500;
+        AuthServiceClient client = new AuthServiceClient(properties, new SimpleMeterRegistry());
+        for (int i = 0; i < 4; i++) {
+            client.fetchStatus(credentials);
+        }
+
+        statusCode = 200;
+        Thread.sleep(250);
+        AuthStatus status = client.fetchStatus(credentials);
+
+        assertThat(status).isNotNull();
+        assertThat(status.authenticated).isTrue();
+        assertThat(client.endpoints().get(0).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should reject calls beyond the bulkhead limit without waiting on the auth service")
+    void fetchStatus_WhenBulkheadFull_ShouldFallBack() throws Exception {
+        properties.getResilience().setMaxConcurrentCalls(1);
+        properties.getResilience().setMaxWait(Duration.ZERO);
+        statusGate = new CountDownLatch(1);
+        AuthServiceClient client = new AuthServiceClient(properties, new SimpleMeterRegistry());
+
+        CompletableFuture<AuthStatus> blocked = CompletableFuture.supplyAsync(() -> client.fetchStatus(credentials));
+        while (statusCalls.get() == 0) {
+            Thread.sleep(10);
+        }
+        AuthStatus rejected = client.fetchStatus(credentials);
+        statusGate.countDown();
+
+        assertThat(rejected).isNull();
+        assertThat(blocked.get(2, TimeUnit.SECONDS).authenticated).isTrue();
+        assertThat(statusCalls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should reject calls the breaker refuses at once, without queueing on the bulkhead")
+    void fetchStatus_WhenBreakerRefusesAndBulkheadFull_ShouldRejectByBreaker() throws Exception {
+        properties.getResilience().setMaxConcurrentCalls(1);
+        properties.getResilience().setMaxWait(Duration.ofSeconds(2));
+        statusCode = 500;
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuthServiceClient client = new AuthServiceClient(properties, meterRegistry);
+        for (int i = 0; i < 4; i++) {
+            client.fetchStatus(credentials);
+        }
+        Thread.sleep(250);
+
+        // The half-open probe holds both the only probe slot and the only bulkhead permit
+        statusGate = new CountDownLatch(1);
+        int callsBeforeProbe = statusCalls.get();
+        CompletableFuture<AuthStatus> probe = CompletableFuture.supplyAsync(() -> client.fetchStatus(credentials));
+        while (statusCalls.get() == callsBeforeProbe) {
+            Thread.sleep(10);
+        }
+        long started = System.nanoTime();
+        AuthStatus rejected = client.fetchStatus(credentials);
+        Duration waited = Duration.ofNanos(System.nanoTime() - started);
+        statusGate.countDown();
+        probe.get(2, TimeUnit.SECONDS);
+
+        String endpoint = client.endpoints().get(0).getName();
+        assertThat(rejected).isNull();
+        assertThat(waited).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.counter("auth.client.calls", "endpoint", endpoint, "outcome",
+                "rejected_by_breaker").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("auth.client.calls", "endpoint", endpoint, "outcome",
+                "rejected_by_bulkhead").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should let writes through unbilled when the debit fallback is ALLOW")
+    void useCredits_WhenUnavailableAndAllowFallback_ShouldReturnUnbilled() {
+        properties.getResilience().setDebitFallback(AuthProperties.DebitFallback.ALLOW);
+        AuthServiceClient client = new AuthServiceClient(properties, new SimpleMeterRegistry());
+
+        CreditUseResult result = client.useCredits(credentials, 1, "task_api_operation_post");
+
+        assertThat(result.success).isTrue();
+        assertThat(result.unbilled).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject writes when the debit fallback is DENY")
+    void useCredits_WhenUnavailableAndDenyFallback_ShouldFail() {
+        AuthServiceClient client = new AuthServiceClient(properties, new SimpleMeterRegistry());
+
+        CreditUseResult result = client.useCredits(credentials, 1, "task_api_operation_post");
+
+        assertThat(result.success).isFalse();
+        assertThat(result.error).isEqualTo("Could not validate credits");
+    }
+
+    @Test
+    @DisplayName("Should serve the last known status while the auth service is down with the STALE fallback")
+    void cache_WithStaleFallback_ShouldServeExpiredStatusOnFailure() throws InterruptedException {
+        properties.getResilience().setStatusFallback(AuthProperties.StatusFallback.STALE);
+        properties.getCache().setPositiveTtl(Duration.ofMillis(50));
+        AuthServiceClient client = new AuthServiceClient(properties, new SimpleMeterRegistry());
+        AuthStatusCache cache = new AuthStatusCache(properties, new SimpleMeterRegistry());
+
+        assertThat(cache.get(credentials, client::fetchStatus).authenticated).isTrue();
+        statusCode = 500;
+        Thread.sleep(100);
+
+        assertThat(cache.get(credentials, client::fetchStatus).authenticated).isTrue();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
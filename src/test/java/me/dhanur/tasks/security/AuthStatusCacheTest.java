@@ -0,0 +1,107 @@
+package me.dhanur.tasks.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@DisplayName("AuthStatusCache Unit Tests")
+class AuthStatusCacheTest {
+
+    private AuthProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private final Credentials credentials = new Credentials("session=abc", null);
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuthProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should serve repeat lookups for the same session from the cache")
+    void get_WhenCalledTwice_ShouldLoadOnce() {
+        AuthStatusCache cache = new AuthStatusCache(properties, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        AuthStatus first = cache.get(credentials, countingLoader(loads, true));
+        AuthStatus second = cache.get(credentials, countingLoader(loads, true));
+
+        assertThat(first.authenticated).isTrue();
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not cache indeterminate results")
+    void get_WhenLoaderReturnsNull_ShouldReturnGuestAndRetry() {
+        AuthStatusCache cache = new AuthStatusCache(properties, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        Function<Credentials, AuthStatus> failing = c -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        assertThat(cache.get(credentials, failing).authenticated).isFalse();
+        assertThat(cache.get(credentials, failing).authenticated).isFalse();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should expire negative results after the negative TTL")
+    void get_WhenNegativeTtlElapsed_ShouldReload() {
+        properties.getCache().setNegativeTtl(Duration.ofMillis(50));
+        AuthStatusCache cache = new AuthStatusCache(properties, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(credentials, countingLoader(loads, false));
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> {
+            cache.get(credentials, countingLoader(loads, false));
+            assertThat(loads.get()).isGreaterThan(1);
+        });
+    }
+
+    @Test
+    @DisplayName("Should serve the stale value while refreshing in the background")
+    void get_WhenEntryIsStale_ShouldRefreshInBackground() {
+        properties.getCache().setRefreshAfter(Duration.ZERO);
+        AuthStatusCache cache = new AuthStatusCache(properties, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        AuthStatus first = cache.get(credentials, countingLoader(loads, true));
+        AuthStatus stale = cache.get(credentials, countingLoader(loads, true));
+
+        assertThat(stale).isSameAs(first);
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertThat(loads.get()).isGreaterThan(1));
+    }
+
+    @Test
+    @DisplayName("Should key sessions by a digest of their credentials")
+    void get_WithDifferentCredentials_ShouldLoadSeparately() {
+        AuthStatusCache cache = new AuthStatusCache(properties, meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(credentials, countingLoader(loads, true));
+        cache.get(new Credentials("session=other", null), countingLoader(loads, true));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private static Function<Credentials, AuthStatus> countingLoader(AtomicInteger loads, boolean authenticated) {
+        return c -> {
+            loads.incrementAndGet();
+            AuthStatus status = new AuthStatus();
+            status.authenticated = authenticated;
+            status.role = authenticated ? "user" : "guest";
+            return status;
+        };
+    }
+}
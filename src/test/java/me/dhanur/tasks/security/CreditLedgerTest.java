@@ -0,0 +1,107 @@
+package me.dhanur.tasks.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CreditLedger Unit Tests")
+class CreditLedgerTest {
+
+    @Mock
+    private AuthServiceClient authServiceClient;
+
+    @Mock
+    private RefundQueue refundQueue;
+
+    private AuthProperties properties;
+    private final Credentials credentials = new Credentials("session=abc", null);
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuthProperties();
+        properties.getLease().setEnabled(true);
+        properties.getLease().setBlockSize(5);
+    }
+
+    @Test
+    @DisplayName("Should reserve one block and debit later writes locally")
+    void debit_WithLeasing_ShouldReserveBlockOnce() {
+        when(authServiceClient.useCredits(any(), eq(5), anyString())).thenReturn(CreditUseResult.ok(false));
+        CreditLedger ledger = new CreditLedger(authServiceClient, refundQueue, properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 5; i++) {
+            CreditUseResult result = ledger.debit(credentials, "task_api_operation_post").join();
+            assertThat(result.success).isTrue();
+            assertThat(result.leased).isTrue();
+        }
+
+        verify(authServiceClient, times(1)).useCredits(any(), anyInt(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should return refunded credits to the lease instead of calling the auth service")
+    void refund_OfLeasedCredit_ShouldStayLocal() {
+        when(authServiceClient.useCredits(any(), eq(5), anyString())).thenReturn(CreditUseResult.ok(false));
+        CreditLedger ledger = new CreditLedger(authServiceClient, refundQueue, properties, new SimpleMeterRegistry());
+
+        CreditUseResult charge = ledger.debit(credentials, "task_api_operation_post").join();
+        ledger.refund(credentials, charge);
+
+        verify(refundQueue, never()).enqueue(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should fall back to a single debit when a block cannot be reserved")
+    void debit_WhenBlockRejected_ShouldDebitSingleCredit() {
+        CreditUseResult rejected = CreditUseResult.failed("Insufficient credits");
+        rejected.statusCode = 402;
+        when(authServiceClient.useCredits(any(), eq(5), anyString())).thenReturn(rejected);
+        when(authServiceClient.useCredits(any(), eq(1), anyString())).thenReturn(CreditUseResult.ok(false));
+        CreditLedger ledger = new CreditLedger(authServiceClient, refundQueue, properties, new SimpleMeterRegistry());
+
+        CreditUseResult result = ledger.debit(credentials, "task_api_operation_post").join();
+
+        assertThat(result.success).isTrue();
+        assertThat(result.leased).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should return unused credits when an idle lease is settled")
+    void settle_WhenLeaseIdle_ShouldRefundUnusedCredits() {
+        properties.getLease().setIdleTimeout(Duration.ZERO);
+        when(authServiceClient.useCredits(any(), eq(5), anyString())).thenReturn(CreditUseResult.ok(false));
+        CreditLedger ledger = new CreditLedger(authServiceClient, refundQueue, properties, new SimpleMeterRegistry());
+
+        ledger.debit(credentials, "task_api_operation_post").join();
+        ledger.debit(credentials, "task_api_operation_post").join();
+        ledger.settle();
+
+        verify(refundQueue).enqueue(credentials, 3);
+    }
+
+    @Test
+    @DisplayName("Should debit remotely per request when leasing is disabled")
+    void debit_WithoutLeasing_ShouldDebitEachRequest() {
+        properties.getLease().setEnabled(false);
+        when(authServiceClient.useCredits(any(), eq(1), anyString())).thenReturn(CreditUseResult.ok(false));
+        CreditLedger ledger = new CreditLedger(authServiceClient, refundQueue, properties, new SimpleMeterRegistry());
+
+        ledger.debit(credentials, "task_api_operation_post").join();
+        ledger.debit(credentials, "task_api_operation_post").join();
+
+        verify(authServiceClient, times(2)).useCredits(any(), eq(1), anyString());
+    }
+}
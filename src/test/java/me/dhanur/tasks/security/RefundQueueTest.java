@@ -0,0 +1,178 @@
+package me.dhanur.tasks.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefundQueue Unit Tests")
+class RefundQueueTest {
+
+    @Mock
+    private AuthServiceClient authServiceClient;
+
+    @TempDir
+    Path dir;
+
+    private AuthProperties properties;
+    private RefundQueue queue;
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final Credentials credentials = new Credentials("session=abc", null);
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuthProperties();
+        properties.getRefunds().setJournal(dir.resolve("refunds.log").toString());
+        properties.getRefunds().setInitialBackoff(Duration.ofMillis(10));
+        properties.getRefunds().setJournalKey(KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver a journaled refund in the background")
+    void enqueue_ShouldDeliverAndTruncateJournal() {
+        when(authServiceClient.refundCredits(any(), anyInt())).thenReturn(RefundOutcome.REFUNDED);
+        queue = new RefundQueue(authServiceClient, properties, new SimpleMeterRegistry());
+
+        queue.enqueue(credentials, 1);
+
+        verify(authServiceClient, timeout(2000)).refundCredits(credentials, 1);
+        await().atMost(Duration.ofSeconds(2))
+                .untilAsserted(() -> assertThat(Files.size(dir.resolve("refunds.log"))).isZero());
+    }
+
+    @Test
+    @DisplayName("Should coalesce pending refunds for the same session into one call")
+    void enqueue_ForSameSession_ShouldCoalesce() throws Exception {
+        CountDownLatch firstCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(authServiceClient.refundCredits(any(), anyInt())).thenAnswer(inv -> {
+            firstCall.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return RefundOutcome.FAILED;
+        }).thenReturn(RefundOutcome.REFUNDED);
+        queue = new RefundQueue(authServiceClient, properties, new SimpleMeterRegistry());
+
+        queue.enqueue(credentials, 1);
+        assertThat(firstCall.await(2, TimeUnit.SECONDS)).isTrue();
+        queue.enqueue(credentials, 1);
+        queue.enqueue(credentials, 1);
+        release.countDown();
+
+        verify(authServiceClient, timeout(2000)).refundCredits(credentials, 3);
+    }
+
+    @Test
+    @DisplayName("Should replay undelivered refunds after a restart")
+    void restart_ShouldReplayPendingRefunds() {
+        properties.getRefunds().setInitialBackoff(Duration.ofMinutes(1));
+        when(authServiceClient.refundCredits(any(), anyInt())).thenReturn(RefundOutcome.FAILED);
+        queue = new RefundQueue(authServiceClient, properties, new SimpleMeterRegistry());
+        queue.enqueue(credentials, 2);
+        verify(authServiceClient, timeout(2000)).refundCredits(credentials, 2);
+        queue.shutdown();
+
+        reset(authServiceClient);
+        when(authServiceClient.refundCredits(any(), anyInt())).thenReturn(RefundOutcome.REFUNDED);
+        queue = new RefundQueue(authServiceClient, properties, new SimpleMeterRegistry());
+
+        verify(authServiceClient, timeout(2000)).refundCredits(credentials, 2);
+    }
+
+    @Test
+    @DisplayName("Should journal credentials encrypted, under their digest")
+    void enqueue_ShouldNotJournalPlainCredentials() throws Exception {
+        properties.getRefunds().setInitialBackoff(Duration.ofMinutes(1));
+        when(authServiceClient.refundCredits(any(), anyInt())).thenReturn(RefundOutcome.FAILED);
+        queue = new RefundQueue(authServiceClient, properties, new SimpleMeterRegistry());
+        Credentials bearer = new Credentials("session=abc", "Bearer secret-token");
+
+        queue.enqueue(bearer, 1);
+
+        String journal = Files.readString(dir.resolve("refunds.log"));
+        assertThat(journal).contains(bearer.digest()).doesNotContain("session=abc").doesNotContain("secret-token");
+    }
+
+    @Test
+    @DisplayName("Should abandon replayed refunds whose credentials were encrypted with another key")
+    void restart_WithAnotherKey_ShouldAbandonPendingRefunds() {
+        properties.getRefunds().setInitialBackoff(Duration.ofMinutes(1));
+        when(authServiceClient.refundCredits(any(), anyInt())).thenReturn(RefundOutcome.FAILED);
+        queue = new RefundQueue(authServiceClient, properties, new SimpleMeterRegistry());
+        queue.enqueue(credentials, 2);
+        verify(authServiceClient, timeout(2000)).refundCredits(credentials, 2);
+        queue.shutdown();
+
+        reset(authServiceClient);
+        properties.getRefunds().setJournalKey(null);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        queue = new RefundQueue(authServiceClient, properties, registry);
+
+        assertThat(registry.counter("auth.refunds.abandoned").count()).isEqualTo(2);
+        verify(authServiceClient, after(200).never()).refundCredits(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should abandon a refund at once when the auth service rejects the credentials")
+    void enqueue_WhenRejected_ShouldNotRetry() {
+        when(authServiceClient.refundCredits(any(), anyInt())).thenReturn(RefundOutcome.REJECTED);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        queue = new RefundQueue(authServiceClient, properties, registry);
+
+        queue.enqueue(credentials, 1);
+
+        await().atMost(Duration.ofSeconds(2))
+                .untilAsserted(() -> assertThat(registry.counter("auth.refunds.abandoned").count()).isEqualTo(1));
+        verify(authServiceClient, after(200).times(1)).refundCredits(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should skip malformed journal lines and keep the journal private to its owner")
+    void restart_WithMalformedLines_ShouldSkipThemAndRestrictJournal() throws Exception {
+        Path journal = dir.resolve("refunds.log");
+        Files.writeString(journal, """
+                {"amount":5}
+                {"seq":1}
+                {"seq":2,"amount":3,"cookie":"session=abc"}
+                {"seq":3,"amou
+                """);
+        when(authServiceClient.refundCredits(any(), anyInt())).thenReturn(RefundOutcome.REFUNDED);
+
+        queue = new RefundQueue(authServiceClient, properties, new SimpleMeterRegistry());
+
+        verify(authServiceClient, timeout(2000)).refundCredits(credentials, 3);
+        verify(authServiceClient, never()).refundCredits(any(), eq(5));
+        if (Files.getFileStore(journal).supportsFileAttributeView("posix")) {
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(journal))).isEqualTo("rw-------");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package me.dhanur.tasks.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TokenVerifier Unit Tests")
+class TokenVerifierTest {
+
+    @TempDir
+    Path dir;
+
+    private AuthProperties properties;
+    private KeyPair keyPair;
+    private Path keysFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        keyPair = generateRsaKeyPair();
+        keysFile = dir.resolve("jwks.json");
+        writeJwks(keysFile, "key-1", keyPair);
+
+        properties = new AuthProperties();
+        properties.getToken().setMode(AuthProperties.TokenMode.LOCAL);
+        properties.getToken().setKeysFile(keysFile.toString());
+        properties.getToken().setReloadInterval(Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Should authenticate a valid token and take the role from its claims")
+    void verify_WithValidToken_ShouldReturnRole() throws Exception {
+        TokenVerifier verifier = new TokenVerifier(properties);
+
+        AuthStatus status = verifier.verify(bearer(sign("key-1", keyPair, futureExp(), "admin")));
+
+        assertThat(status).isNotNull();
+        assertThat(status.authenticated).isTrue();
+        assertThat(status.role).isEqualTo("admin");
+    }
+
+    @Test
+    @DisplayName("Should reject an expired token")
+    void verify_WithExpiredToken_ShouldReturnGuest() throws Exception {
+        TokenVerifier verifier = new TokenVerifier(properties);
+
+        AuthStatus status = verifier.verify(bearer(sign("key-1", keyPair,
+                Instant.now().minusSeconds(3600).getEpochSecond(), "user")));
+
+        assertThat(status.authenticated).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject a token with a forged signature")
+    void verify_WithWrongKey_ShouldReturnGuest() throws Exception {
+        TokenVerifier verifier = new TokenVerifier(properties);
+
+        AuthStatus status = verifier.verify(bearer(sign("key-1", generateRsaKeyPair(), futureExp(), "user")));
+
+        assertThat(status.authenticated).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should defer cookies and opaque tokens to the auth service")
+    void verify_WithoutSignedToken_ShouldReturnNull() {
+        TokenVerifier verifier = new TokenVerifier(properties);
+
+        assertThat(verifier.verify(new Credentials("session=abc", null))).isNull();
+        assertThat(verifier.verify(bearer("opaque-token"))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should defer tokens signed with an algorithm it does not verify to the auth service")
+    void verify_WithUnsupportedAlgorithm_ShouldReturnNull() {
+        TokenVerifier verifier = new TokenVerifier(properties);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString(
+                ("{\"sub\":\"42\",\"exp\":" + futureExp() + "}").getBytes(StandardCharsets.UTF_8));
+
+        for (String alg : new String[] {"HS256", "none"}) {
+            String header = encoder.encodeToString(
+                    ("{\"alg\":\"" + alg + "\",\"kid\":\"key-1\"}").getBytes(StandardCharsets.UTF_8));
+            assertThat(verifier.verify(bearer(header + "." + payload + ".c2ln"))).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should pick up rotated keys when the keys file changes")
+    void verify_AfterKeysFileChanges_ShouldUseNewKeys() throws Exception {
+        TokenVerifier verifier = new TokenVerifier(properties);
+        KeyPair rotated = generateRsaKeyPair();
+        String token = sign("key-2", rotated, futureExp(), "user");
+        assertThat(verifier.verify(bearer(token))).isNull();
+
+        writeJwks(keysFile, "key-2", rotated);
+        Files.setLastModifiedTime(keysFile, FileTime.from(Instant.now().plusSeconds(5)));
+
+        assertThat(verifier.verify(bearer(token)).authenticated).isTrue();
+    }
+
+    private static Credentials bearer(String token) {
+        return new Credentials(null, "Bearer " + token);
+    }
+
+    private static long futureExp() {
+        return Instant.now().plusSeconds(3600).getEpochSecond();
+    }
+
+    private static String sign(String kid, KeyPair keys, long exp, String role) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString(
+                ("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}").getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(
+                ("{\"sub\":\"42\",\"role\":\"" + role + "\",\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8));
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(keys.getPrivate());
+        signer.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+        return header + "." + payload + "." + encoder.encodeToString(signer.sign());
+    }
+
+    private static KeyPair generateRsaKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static void writeJwks(Path file, String kid, KeyPair keys) throws Exception {
+        RSAPublicKey publicKey = (RSAPublicKey) keys.getPublic();
+        String jwks = "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"" + kid + "\",\"alg\":\"RS256\",\"n\":\""
+                + base64Url(publicKey.getModulus()) + "\",\"e\":\"" + base64Url(publicKey.getPublicExponent())
+                + "\"}]}";
+        Files.writeString(file, jwks, StandardCharsets.UTF_8);
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0 && bytes.length > 1) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
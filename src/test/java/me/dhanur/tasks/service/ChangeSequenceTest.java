@@ -0,0 +1,172 @@
+package me.dhanur.tasks.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.dhanur.tasks.config.TaskProperties;
+import me.dhanur.tasks.event.TaskEvent;
+import me.dhanur.tasks.event.TaskEventBroadcaster;
+import me.dhanur.tasks.repository.TaskRepository;
+import me.dhanur.tasks.repository.TaskTombstoneRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChangeSequence Unit Tests")
+class ChangeSequenceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskTombstoneRepository tombstoneRepository;
+
+    private ChangeSequence changeSequence;
+
+    @BeforeEach
+    void setUp() {
+        when(taskRepository.findMaxChangeSeq()).thenReturn(10L);
+        when(tombstoneRepository.findMaxChangeSeq()).thenReturn(12L);
+        changeSequence = new ChangeSequence(taskRepository, tombstoneRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should continue after the highest stored change sequence")
+    void next_ShouldContinueFromStoredMaximum() {
+        assertThat(changeSequence.next()).isEqualTo(13L);
+        assertThat(changeSequence.safeWatermark()).isEqualTo(13L);
+    }
+
+    @Test
+    @DisplayName("Should hold the watermark below changes whose transaction is still open")
+    void safeWatermark_WithOpenTransaction_ShouldStopBeforeIt() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        changeSequence.next();
+        List<TransactionSynchronization> open = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        changeSequence.next();
+
+        // Then
+        assertThat(changeSequence.safeWatermark()).isEqualTo(12L);
+
+        // When
+        open.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Then
+        assertThat(changeSequence.safeWatermark()).isEqualTo(14L);
+    }
+
+    @Test
+    @DisplayName("Should count commits while an older transaction holds the watermark back")
+    void commitCount_WithOpenTransaction_ShouldMoveOnEveryCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        changeSequence.next();
+        List<TransactionSynchronization> slow = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        changeSequence.next();
+        List<TransactionSynchronization> fast = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        changeSequence.next();
+        List<TransactionSynchronization> failed = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        long watermark = changeSequence.safeWatermark();
+
+        // When
+        fast.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        failed.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        assertThat(changeSequence.safeWatermark()).isEqualTo(watermark);
+        assertThat(changeSequence.commitCount()).isEqualTo(1L);
+
+        slow.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertThat(changeSequence.commitCount()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Should still hold a change back from the watermark when its event is queued for subscribers")
+    void next_OnCommit_ShouldBeReleasedOnlyAfterTheEventIsQueued() {
+        // Given
+        TaskProperties properties = new TaskProperties();
+        TaskEventBroadcaster broadcaster = new TaskEventBroadcaster(properties, changeSequence,
+                new SimpleMeterRegistry());
+        TaskEventBroadcaster listener = spy(broadcaster);
+        AtomicLong watermarkWhenQueued = new AtomicLong(-1);
+        doAnswer(invocation -> {
+            watermarkWhenQueued.set(changeSequence.safeWatermark());
+            return invocation.callRealMethod();
+        }).when(listener).onTaskEvent(any());
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(TransactionalEventListenerFactory.class);
+            context.registerBean(TaskEventBroadcaster.class, () -> listener);
+            context.refresh();
+
+            // When: a transaction takes a number and publishes its event, as the service does
+            Long seq = new TransactionTemplate(new NoOpTransactionManager()).execute(status -> {
+                long next = changeSequence.next();
+                context.publishEvent(TaskEvent.deleted(1L, next));
+                return next;
+            });
+
+            // Then
+            assertThat(watermarkWhenQueued.get()).isEqualTo(seq - 1);
+            assertThat(changeSequence.safeWatermark()).isEqualTo(seq);
+        }
+    }
+
+    /**
+     * Transaction manager with nothing behind it, so that commits run Spring's synchronization callbacks
+     * in their real order
+     */
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
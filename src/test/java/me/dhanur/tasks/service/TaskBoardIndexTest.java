@@ -0,0 +1,138 @@
+package me.dhanur.tasks.service;
+
+import me.dhanur.tasks.config.TaskProperties;
+import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.event.TaskEvent;
+import me.dhanur.tasks.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskBoardIndex Unit Tests")
+class TaskBoardIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TaskBoardIndex board;
+
+    @BeforeEach
+    void setUp() {
+        when(taskRepository.streamBoard()).thenReturn(Stream.empty());
+        board = new TaskBoardIndex(taskRepository, transactionManager, enabled());
+    }
+
+    @Test
+    @DisplayName("Should page, filter and sort tasks the way the list queries do")
+    void findPage_ShouldPageFilterAndSort() {
+        board.onTaskEvent(created(1L, "Charlie", TaskStatus.TODO, 1));
+        board.onTaskEvent(created(2L, "Alpha", TaskStatus.DONE, 2));
+        board.onTaskEvent(created(3L, "Bravo", TaskStatus.TODO, 3));
+
+        Page<TaskResponse> newest = board.findPage(null, page(0, 2, Sort.Direction.DESC, "createdAt"));
+        assertThat(newest.getContent()).extracting(TaskResponse::getId).containsExactly(3L, 2L);
+        assertThat(newest.getTotalElements()).isEqualTo(3);
+
+        Page<TaskResponse> todoByTitle = board.findPage(TaskStatus.TODO, page(0, 10, Sort.Direction.ASC, "title"));
+        assertThat(todoByTitle.getContent()).extracting(TaskResponse::getId).containsExactly(3L, 1L);
+        assertThat(todoByTitle.getTotalElements()).isEqualTo(2);
+
+        Page<TaskResponse> byStatus = board.findPage(null,
+                page(0, 10, Sort.Direction.ASC, "status", "createdAt"));
+        assertThat(byStatus.getContent()).extracting(TaskResponse::getId).containsExactly(2L, 1L, 3L);
+
+        Slice<TaskResponse> second = board.findSlice(null, page(1, 2, Sort.Direction.DESC, "createdAt"));
+        assertThat(second.getContent()).extracting(TaskResponse::getId).containsExactly(1L);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should move tasks between statuses, drop deleted ones and ignore late changes")
+    void onTaskEvent_ShouldKeepBoardCurrent() {
+        board.onTaskEvent(created(1L, "First", TaskStatus.TODO, 1));
+        board.onTaskEvent(created(2L, "Second", TaskStatus.TODO, 2));
+        board.onTaskEvent(TaskEvent.of(TaskEvent.Type.STATUS_CHANGED, task(1L, "First", TaskStatus.DONE), 3));
+        board.onTaskEvent(TaskEvent.deleted(2L, 5));
+        board.onTaskEvent(TaskEvent.of(TaskEvent.Type.UPDATED, task(2L, "Second again", TaskStatus.TODO), 4));
+
+        Pageable newest = page(0, 10, Sort.Direction.DESC, "createdAt");
+        assertThat(board.findPage(TaskStatus.TODO, newest).getContent()).isEmpty();
+        assertThat(board.findPage(TaskStatus.DONE, newest).getContent())
+                .extracting(TaskResponse::getId).containsExactly(1L);
+        assertThat(board.findPage(null, newest).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should seek past a cursor in newest-first order")
+    void findAfter_ShouldSeekPastCursor() {
+        board.onTaskEvent(created(1L, "One", TaskStatus.TODO, 1));
+        board.onTaskEvent(created(2L, "Two", TaskStatus.TODO, 2));
+        board.onTaskEvent(created(3L, "Three", TaskStatus.TODO, 3));
+
+        assertThat(board.findAfter(null, null, 2)).extracting(TaskResponse::getId).containsExactly(3L, 2L);
+        assertThat(board.findAfter(null, new TaskCursor(START.plusMinutes(2), 2L), 2))
+                .extracting(TaskResponse::getId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should leave orderings it does not keep, and everything while disabled, to the database")
+    void findPage_WhenUnsupportedOrDisabled_ShouldReturnNull() {
+        assertThat(board.findPage(null, PageRequest.of(0, 10, Sort.by("description", "id")))).isNull();
+        assertThat(board.findPage(null, PageRequest.of(0, 10))).isNull();
+
+        TaskBoardIndex disabled = new TaskBoardIndex(taskRepository, transactionManager, new TaskProperties());
+        assertThat(disabled.findPage(null, page(0, 10, Sort.Direction.DESC, "createdAt"))).isNull();
+        assertThat(disabled.findAfter(null, null, 10)).isNull();
+    }
+
+    private static TaskProperties enabled() {
+        TaskProperties properties = new TaskProperties();
+        properties.getBoard().setEnabled(true);
+        return properties;
+    }
+
+    private static Pageable page(int number, int size, Sort.Direction direction, String... properties) {
+        return PageRequest.of(number, size, Sort.by(direction, properties).and(Sort.by(direction, "id")));
+    }
+
+    private static TaskEvent created(Long id, String title, TaskStatus status, long changeSeq) {
+        return TaskEvent.of(TaskEvent.Type.CREATED, task(id, title, status), changeSeq);
+    }
+
+    /**
+     * A task created id minutes after the start, so ids and creation times sort alike
+     */
+    private static TaskResponse task(Long id, String title, TaskStatus status) {
+        LocalDateTime createdAt = START.plusMinutes(id);
+        return TaskResponse.builder()
+                .id(id)
+                .title(title)
+                .status(status)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .version(0L)
+                .build();
+    }
+}
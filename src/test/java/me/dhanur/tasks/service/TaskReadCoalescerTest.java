@@ -0,0 +1,85 @@
+package me.dhanur.tasks.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.dhanur.tasks.config.TaskProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskReadCoalescer Unit Tests")
+class TaskReadCoalescerTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TaskReadCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        TaskProperties properties = new TaskProperties();
+        properties.getCoalesce().setWindow(Duration.ZERO);
+        coalescer = new TaskReadCoalescer(transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should run one query for identical reads made while it is in flight")
+    void read_WhileIdenticalReadInFlight_ShouldShareResult() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> coalescer.read("key", () -> {
+            queries.incrementAndGet();
+            awaitQuietly(release);
+            return "result";
+        }));
+        await().until(() -> queries.get() == 1);
+
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> coalescer.read("key", () -> {
+            queries.incrementAndGet();
+            return "other";
+        }));
+        await().until(() -> meterRegistry.counter("tasks.reads", "outcome", "coalesced").count() == 1);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(queries).hasValue(1);
+        assertThat(meterRegistry.counter("tasks.reads", "outcome", "executed").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should run reads with different keys, and reads after a failure, separately")
+    void read_WithDifferentKeysOrAfterFailure_ShouldQueryAgain() {
+        assertThat(coalescer.read("a", () -> 1)).isEqualTo(1);
+        assertThat(coalescer.read("b", () -> 2)).isEqualTo(2);
+
+        assertThatThrownBy(() -> coalescer.read("c", () -> {
+            throw new IllegalStateException("database unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.read("c", () -> 3)).isEqualTo(3);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
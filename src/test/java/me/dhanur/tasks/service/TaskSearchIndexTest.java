@@ -0,0 +1,119 @@
+package me.dhanur.tasks.service;
+
+import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.event.TaskEvent;
+import me.dhanur.tasks.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskSearchIndex Unit Tests")
+class TaskSearchIndexTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TaskSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(taskRepository.streamSearchable()).thenReturn(Stream.empty());
+        index = new TaskSearchIndex(taskRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should require every word and rank title matches above description matches")
+    void search_ShouldMatchAllWordsAndRankTitlesFirst() {
+        index.onTaskEvent(created(1L, "Write report", "Quarterly numbers for the board", 1));
+        index.onTaskEvent(created(2L, "Board meeting", "Present the quarterly report", 2));
+        index.onTaskEvent(created(3L, "Board games", "Buy new ones", 3));
+
+        assertThat(index.search("report board", null, 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("Report", null, 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Should match word prefixes below exact words, and filter by status")
+    void search_ShouldMatchPrefixesAndFilterByStatus() {
+        index.onTaskEvent(created(1L, "Deploy release", null, 1));
+        index.onTaskEvent(created(2L, "Deployment checklist", null, 2));
+        index.onTaskEvent(TaskEvent.of(TaskEvent.Type.STATUS_CHANGED,
+                task(2L, "Deployment checklist", null, TaskStatus.DONE), 3));
+
+        assertThat(index.search("deploy", null, 10)).containsExactly(1L, 2L);
+        assertThat(index.search("deploy", TaskStatus.DONE, 10)).containsExactly(2L);
+        assertThat(index.search("deploy", null, 1)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should ignore changes older than the one already indexed")
+    void onTaskEvent_OutOfOrder_ShouldKeepNewestChange() {
+        index.onTaskEvent(created(1L, "Old title", null, 1));
+        index.onTaskEvent(TaskEvent.deleted(1L, 3));
+        index.onTaskEvent(TaskEvent.of(TaskEvent.Type.UPDATED, task(1L, "New title", null, TaskStatus.TODO), 2));
+
+        assertThat(index.search("title", null, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should index the stored tasks on rebuild")
+    void rebuild_ShouldLoadStoredTasks() {
+        when(taskRepository.streamSearchable()).thenReturn(Stream.of(
+                searchable(5L, "Water the plants", TaskStatus.TODO, 9)));
+
+        index.rebuild();
+
+        assertThat(index.search("plants", null, 10)).containsExactly(5L);
+    }
+
+    private static TaskEvent created(Long id, String title, String description, long changeSeq) {
+        return TaskEvent.of(TaskEvent.Type.CREATED, task(id, title, description, TaskStatus.TODO), changeSeq);
+    }
+
+    private static TaskResponse task(Long id, String title, String description, TaskStatus status) {
+        return TaskResponse.builder().id(id).title(title).description(description).status(status).build();
+    }
+
+    private static TaskRepository.SearchableTask searchable(Long id, String title, TaskStatus status, long changeSeq) {
+        return new TaskRepository.SearchableTask() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+
+            @Override
+            public TaskStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getChangeSeq() {
+                return changeSeq;
+            }
+        };
+    }
+}
@@ -1,11 +1,18 @@
 package me.dhanur.tasks.service;
 
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import me.dhanur.tasks.dto.TaskFields;
 import me.dhanur.tasks.dto.TaskRequest;
 import me.dhanur.tasks.dto.TaskResponse;
+import me.dhanur.tasks.dto.TaskSlice;
 import me.dhanur.tasks.entity.Task;
 import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.exception.PreconditionFailedException;
 import me.dhanur.tasks.exception.ResourceNotFoundException;
 import me.dhanur.tasks.repository.TaskRepository;
+import me.dhanur.tasks.repository.TaskTombstoneRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,19 +20,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,14 +47,53 @@ class TaskServiceTest {
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private TaskCountCache taskCountCache;
+
+    @Mock
+    private TaskStatusCounters statusCounters;
+
+    @Mock
+    private TaskSearchIndex searchIndex;
+
+    @Mock
+    private TaskBoardIndex boardIndex;
+
+    @Mock
+    private TaskReadCoalescer readCoalescer;
+
+    @Mock
+    private TaskTombstoneRepository tombstoneRepository;
+
+    @Mock
+    private ChangeSequence changeSequence;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cache;
+
     @InjectMocks
     private TaskServiceImpl taskService;
 
     private Task testTask;
+    private TaskResponse testResponse;
     private TaskRequest testRequest;
 
     @BeforeEach
     void setUp() {
+        lenient().when(readCoalescer.read(any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        lenient().when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        lenient().when(entityManagerFactory.getCache()).thenReturn(cache);
+
         testTask = Task.builder()
                 .id(1L)
                 .title("Test Task")
@@ -52,6 +103,15 @@ class TaskServiceTest {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
+        testResponse = TaskResponse.builder()
+                .id(1L)
+                .title("Test Task")
+                .description("Test Description")
+                .status(TaskStatus.TODO)
+                .createdAt(testTask.getCreatedAt())
+                .updatedAt(testTask.getUpdatedAt())
+                .build();
+
         testRequest = TaskRequest.builder()
                 .title("Test Task")
                 .description("Test Description")
@@ -110,19 +170,89 @@ class TaskServiceTest {
     void getAllTasks_ShouldReturnPageOfTasks() {
         // Given
         Pageable pageable = PageRequest.of(0, 10);
-        List<Task> tasks = List.of(testTask);
-        Page<Task> taskPage = new PageImpl<>(tasks, pageable, tasks.size());
+        List<TaskResponse> tasks = List.of(testResponse);
+        Page<TaskResponse> taskPage = new PageImpl<>(tasks, pageable, tasks.size());
 
-        when(taskRepository.findAll(pageable)).thenReturn(taskPage);
+        when(taskRepository.findResponses(pageable)).thenReturn(taskPage);
 
         // When
-        Page<TaskResponse> response = taskService.getAllTasks(pageable, null);
+        Page<TaskResponse> response = taskService.getAllTasks(pageable, null, TaskFields.ALL);
 
         // Then
         assertThat(response).isNotNull();
         assertThat(response.getContent()).hasSize(1);
         assertThat(response.getContent().get(0).getTitle()).isEqualTo("Test Task");
-        verify(taskRepository, times(1)).findAll(pageable);
+        verify(taskRepository, times(1)).findResponses(pageable);
+    }
+
+    @Test
+    @DisplayName("Should answer the task list from the in-memory board when it can")
+    void getAllTasks_WhenBoardAnswers_ShouldNotQuery() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+        when(boardIndex.findPage(TaskStatus.TODO, pageable))
+                .thenReturn(new PageImpl<>(List.of(testResponse), pageable, 1));
+
+        // When
+        Page<TaskResponse> response = taskService.getAllTasks(pageable, TaskStatus.TODO, TaskFields.ALL);
+
+        // Then
+        assertThat(response.getContent()).containsExactly(testResponse);
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    @DisplayName("Should read only the selected fields when a subset is requested")
+    void getAllTasks_WithFieldSelection_ShouldUseProjection() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+        TaskFields fields = TaskFields.parse("id,title,status");
+        TaskResponse sparse = TaskResponse.builder().id(1L).title("Test Task").status(TaskStatus.TODO).build();
+        when(taskRepository.findSparsePage(fields, TaskStatus.TODO, pageable))
+                .thenReturn(new PageImpl<>(List.of(sparse), pageable, 1));
+
+        // When
+        Page<TaskResponse> response = taskService.getAllTasks(pageable, TaskStatus.TODO, fields);
+
+        // Then
+        assertThat(response.getContent()).containsExactly(sparse);
+        verify(taskRepository, never()).findResponsesByStatus(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should get a task slice without counting")
+    void getTaskSlice_ShouldNotCount() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 1);
+        when(taskRepository.findResponseSlice(pageable)).thenReturn(new SliceImpl<>(List.of(testResponse), pageable, true));
+
+        // When
+        TaskSlice response = taskService.getTaskSlice(pageable, null, TaskFields.ALL, false);
+
+        // Then
+        assertThat(response.getContent()).hasSize(1);
+        assertThat(response.isHasNext()).isTrue();
+        assertThat(response.isLast()).isFalse();
+        assertThat(response.getApproximateTotal()).isNull();
+        verify(taskRepository, never()).count();
+        verifyNoInteractions(taskCountCache);
+    }
+
+    @Test
+    @DisplayName("Should attach the cached total to a task slice when requested")
+    void getTaskSlice_WithApproximateTotal_ShouldUseCachedCount() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+        when(taskRepository.findResponseSliceByStatus(TaskStatus.TODO, pageable))
+                .thenReturn(new SliceImpl<>(List.of(testResponse), pageable, false));
+        when(taskCountCache.get(TaskStatus.TODO)).thenReturn(42L);
+
+        // When
+        TaskSlice response = taskService.getTaskSlice(pageable, TaskStatus.TODO, TaskFields.ALL, true);
+
+        // Then
+        assertThat(response.isLast()).isTrue();
+        assertThat(response.getApproximateTotal()).isEqualTo(42L);
     }
 
     @Test
@@ -130,37 +260,38 @@ class TaskServiceTest {
     void getAllTasks_WithStatusFilter_ShouldReturnFilteredTasks() {
         // Given
         Pageable pageable = PageRequest.of(0, 10);
-        List<Task> tasks = List.of(testTask);
-        Page<Task> taskPage = new PageImpl<>(tasks, pageable, tasks.size());
+        List<TaskResponse> tasks = List.of(testResponse);
+        Page<TaskResponse> taskPage = new PageImpl<>(tasks, pageable, tasks.size());
 
-        when(taskRepository.findByStatus(TaskStatus.TODO, pageable)).thenReturn(taskPage);
+        when(taskRepository.findResponsesByStatus(TaskStatus.TODO, pageable)).thenReturn(taskPage);
 
         // When
-        Page<TaskResponse> response = taskService.getAllTasks(pageable, TaskStatus.TODO);
+        Page<TaskResponse> response = taskService.getAllTasks(pageable, TaskStatus.TODO, TaskFields.ALL);
 
         // Then
         assertThat(response).isNotNull();
         assertThat(response.getContent()).hasSize(1);
         assertThat(response.getContent().get(0).getStatus()).isEqualTo(TaskStatus.TODO);
-        verify(taskRepository, times(1)).findByStatus(TaskStatus.TODO, pageable);
-        verify(taskRepository, never()).findAll(pageable);
+        verify(taskRepository, times(1)).findResponsesByStatus(TaskStatus.TODO, pageable);
+        verify(taskRepository, never()).findResponses(pageable);
     }
 
     @Test
     @DisplayName("Should update task status successfully")
     void updateTaskStatus_WhenTaskExists_ShouldReturnUpdatedTask() {
         // Given
-        Task updatedTask = Task.builder()
+        Task updated = Task.builder()
                 .id(1L)
                 .title("Test Task")
-                .description("Test Description")
                 .status(TaskStatus.IN_PROGRESS)
-                .createdAt(testTask.getCreatedAt())
-                .updatedAt(LocalDateTime.now())
+                .version(3L)
+                .changeSeq(7L)
                 .build();
-
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(testTask));
-        when(taskRepository.save(any(Task.class))).thenReturn(updatedTask);
+        when(taskRepository.lockStatusById(1L)).thenReturn(Optional.of(TaskStatus.TODO));
+        when(changeSequence.next()).thenReturn(7L);
+        when(taskRepository.updateStatus(eq(1L), isNull(), eq(TaskStatus.IN_PROGRESS), eq(7L),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(updated));
 
         // When
         TaskResponse response = taskService.updateTaskStatus(1L, TaskStatus.IN_PROGRESS);
@@ -168,21 +299,40 @@ class TaskServiceTest {
         // Then
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
-        verify(taskRepository, times(1)).findById(1L);
-        verify(taskRepository, times(1)).save(any(Task.class));
+        assertThat(response.getVersion()).isEqualTo(3L);
+        verify(statusCounters, times(1)).moved(TaskStatus.TODO, TaskStatus.IN_PROGRESS);
+        verify(cache, times(1)).evict(Task.class, 1L);
+        verify(taskRepository, never()).save(any(Task.class));
     }
 
     @Test
     @DisplayName("Should throw ResourceNotFoundException when updating non-existent task status")
     void updateTaskStatus_WhenTaskNotExists_ShouldThrowException() {
         // Given
-        when(taskRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(taskRepository.lockStatusById(1L)).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> taskService.updateTaskStatus(1L, TaskStatus.IN_PROGRESS))
                 .isInstanceOf(ResourceNotFoundException.class);
-        verify(taskRepository, times(1)).findById(1L);
-        verify(taskRepository, never()).save(any(Task.class));
+        verify(taskRepository, never()).updateStatus(anyLong(), any(), any(), anyLong(), any());
+        verifyNoInteractions(statusCounters, changeSequence);
+    }
+
+    @Test
+    @DisplayName("Should throw PreconditionFailedException when the task has moved past the expected version")
+    void updateTaskStatus_WithStaleVersion_ShouldThrowException() {
+        // Given
+        testTask.setVersion(4L);
+        when(taskRepository.lockStatusById(1L)).thenReturn(Optional.of(TaskStatus.TODO));
+        when(taskRepository.updateStatus(eq(1L), eq(3L), eq(TaskStatus.DONE), anyLong(), any())).thenReturn(0);
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(testTask));
+
+        // When & Then
+        assertThatThrownBy(() -> taskService.updateTaskStatus(1L, TaskStatus.DONE, 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessageContaining("version 4");
+        assertThat(testTask.getStatus()).isEqualTo(TaskStatus.TODO);
+        verifyNoInteractions(statusCounters);
     }
 
     @Test
@@ -234,27 +384,28 @@ class TaskServiceTest {
     @DisplayName("Should delete task successfully")
     void deleteTask_WhenTaskExists_ShouldDeleteTask() {
         // Given
-        when(taskRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(taskRepository).deleteById(1L);
+        when(taskRepository.lockStatusById(1L)).thenReturn(Optional.of(TaskStatus.DONE));
 
         // When
         taskService.deleteTask(1L);
 
         // Then
-        verify(taskRepository, times(1)).existsById(1L);
-        verify(taskRepository, times(1)).deleteById(1L);
+        verify(taskRepository, times(1)).deleteTaskById(1L);
+        verify(cache, times(1)).evict(Task.class, 1L);
+        verify(statusCounters, times(1)).moved(TaskStatus.DONE, null);
+        verify(taskRepository, never()).findById(anyLong());
     }
 
     @Test
     @DisplayName("Should throw ResourceNotFoundException when deleting non-existent task")
     void deleteTask_WhenTaskNotExists_ShouldThrowException() {
         // Given
-        when(taskRepository.existsById(anyLong())).thenReturn(false);
+        when(taskRepository.lockStatusById(anyLong())).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> taskService.deleteTask(1L))
                 .isInstanceOf(ResourceNotFoundException.class);
-        verify(taskRepository, times(1)).existsById(1L);
-        verify(taskRepository, never()).deleteById(anyLong());
+        verify(taskRepository, never()).deleteTaskById(anyLong());
+        verify(entityManager, never()).persist(any());
     }
 }
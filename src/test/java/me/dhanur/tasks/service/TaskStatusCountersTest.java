@@ -0,0 +1,88 @@
+package me.dhanur.tasks.service;
+
+import me.dhanur.tasks.entity.TaskStatus;
+import me.dhanur.tasks.repository.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TaskStatusCounters Unit Tests")
+class TaskStatusCountersTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    private TaskStatusCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        when(taskRepository.countGroupedByStatus()).thenReturn(List.of(count(TaskStatus.TODO, 3)));
+        counters = new TaskStatusCounters(taskRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should start from the stored counts, with zero for statuses without tasks")
+    void snapshot_AfterStartup_ShouldMatchDatabase() {
+        assertThat(counters.snapshot())
+                .containsEntry(TaskStatus.TODO, 3L)
+                .containsEntry(TaskStatus.IN_PROGRESS, 0L)
+                .containsEntry(TaskStatus.DONE, 0L);
+    }
+
+    @Test
+    @DisplayName("Should apply a move only when its transaction commits")
+    void moved_InTransaction_ShouldWaitForCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        counters.moved(TaskStatus.TODO, TaskStatus.DONE);
+        counters.moved(null, TaskStatus.TODO);
+        List<TransactionSynchronization> committed = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        counters.moved(TaskStatus.TODO, null);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Then
+        assertThat(counters.snapshot()).containsEntry(TaskStatus.TODO, 3L).containsEntry(TaskStatus.DONE, 0L);
+
+        // When
+        committed.forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertThat(counters.snapshot()).containsEntry(TaskStatus.TODO, 3L).containsEntry(TaskStatus.DONE, 1L);
+    }
+
+    private static TaskRepository.StatusCount count(TaskStatus status, long count) {
+        return new TaskRepository.StatusCount() {
+            @Override
+            public TaskStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}